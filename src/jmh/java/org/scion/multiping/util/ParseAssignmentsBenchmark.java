@@ -0,0 +1,55 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Parsing of the ISD/AS input file, the reported time is per line. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseAssignmentsBenchmark {
+  private static final int N_LINES = 10_000;
+
+  private java.nio.file.Path file;
+
+  @Setup
+  public void setup() throws IOException {
+    file = Files.createTempFile("isd-as-assignments", ".csv");
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+      for (int i = 0; i < N_LINES; i++) {
+        out.println("\"" + (1 + i % 100) + "-ff00:0:" + Integer.toHexString(i) + "\",AS " + i);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(N_LINES)
+  public List<ParseAssignments.HostEntry> getList() {
+    return ParseAssignments.getList(file.toString());
+  }
+}
@@ -0,0 +1,49 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+import org.scion.jpan.internal.header.PathRawParser;
+
+/** Hop count of a path: parsing the raw path vs. the cached {@link PathInfo}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathInfoBenchmark {
+  @Param({"2", "8", "16"})
+  public int nHops;
+
+  private Path path;
+
+  @Setup
+  public void setup() {
+    path = PathHelper.createPaths(1, nHops).get(0);
+  }
+
+  @Benchmark
+  public int parseHopCount() {
+    return PathRawParser.create(path.getRawPath()).getHopCount();
+  }
+
+  @Benchmark
+  public int cachedHopCount() {
+    return PathInfo.get(path).getHopCount();
+  }
+}
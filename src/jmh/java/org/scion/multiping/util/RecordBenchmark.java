@@ -0,0 +1,76 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+import org.scion.jpan.Scmp;
+
+/** Formatting and writing of a finished {@link Record}, as done once per path and round. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordBenchmark {
+  @Param({Config.OUTPUT_CSV, Config.OUTPUT_BINARY})
+  public String format;
+
+  private RecordWriter writer;
+  private final RecordPool pool = new RecordPool(16);
+  private Path path;
+  private Scmp.EchoMessage response;
+
+  /** Discards all output, so that only formatting is measured. */
+  private static class NullOutputStream extends OutputStream {
+    @Override
+    public void write(int b) {
+      // Discard
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      // Discard
+    }
+  }
+
+  @Setup
+  public void setup() {
+    writer = RecordWriter.create(new NullOutputStream(), format);
+    path = PathHelper.createPaths(1, 5).get(0);
+    Scmp.EchoMessage request = Scmp.EchoMessage.createRequest(1, path, ByteBuffer.allocate(0));
+    response = Scmp.EchoMessage.create(Scmp.TypeCode.TYPE_129, 0, 1, path);
+    response.assignRequest(request, 12_345_678);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    writer.close();
+  }
+
+  @Benchmark
+  public Record finishMeasurement() {
+    Record rec = pool.startMeasurement(path, 3);
+    for (int i = 0; i < 3; i++) {
+      rec.registerAttempt(i, response);
+    }
+    rec.finishMeasurement(writer);
+    return rec;
+  }
+}
@@ -0,0 +1,65 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Summary statistics that are updated once per result ({@link StreamingStats}, {@link
+ * LatencyHistogram}) and their percentile queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsBenchmark {
+  private final double[] values = new double[1024];
+  private int index = 0;
+  private StreamingStats stats;
+  private LatencyHistogram filled;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 1 + random.nextDouble() * 300;
+    }
+    stats = new StreamingStats();
+    filled = new LatencyHistogram();
+    for (int i = 0; i < 100_000; i++) {
+      filled.add(values[i & (values.length - 1)]);
+    }
+  }
+
+  @Benchmark
+  public StreamingStats add() {
+    index = (index + 1) & (values.length - 1);
+    stats.add(values[index]);
+    return stats;
+  }
+
+  @Benchmark
+  public double percentile() {
+    return filled.getPercentile(99);
+  }
+
+  @Benchmark
+  public double mean() {
+    return stats.getMean();
+  }
+}
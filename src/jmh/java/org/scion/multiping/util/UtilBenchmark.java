@@ -0,0 +1,48 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** {@link Util#round(double, int)}, which is used for every latency that is printed or written. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+  private final double[] values = new double[1024];
+  private int index = 0;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i * 1.234567;
+    }
+  }
+
+  @Benchmark
+  public double round() {
+    index = (index + 1) & (values.length - 1);
+    return Util.round(values[index], 2);
+  }
+
+  @Benchmark
+  public String roundToString() {
+    index = (index + 1) & (values.length - 1);
+    return Double.toString(Util.round(values[index], 2));
+  }
+}
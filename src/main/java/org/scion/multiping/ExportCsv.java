@@ -0,0 +1,55 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.zip.GZIPInputStream;
+import org.scion.multiping.util.BinaryRecordReader;
+import org.scion.multiping.util.Util;
+
+/**
+ * Converts a binary result file of PingRepeat (see "outputFormat") into the CSV format that
+ * PingRepeat writes with "outputFormat" = "csv". Files ending with ".gz" are decompressed.
+ */
+public class ExportCsv {
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      Util.println("Usage: export-csv <binary input file> <CSV output file>");
+      System.exit(1);
+    }
+    long n = export(args[0], args[1]);
+    Util.println("Exported " + n + " records to " + args[1]);
+  }
+
+  static long export(String inputFile, String outputFile) throws IOException {
+    long n = 0;
+    try (InputStream file = new FileInputStream(inputFile);
+        InputStream in = inputFile.endsWith(".gz") ? new GZIPInputStream(file) : file;
+        BinaryRecordReader reader = new BinaryRecordReader(in);
+        Writer writer = new BufferedWriter(new FileWriter(outputFile))) {
+      BinaryRecordReader.Entry e;
+      while ((e = reader.next()) != null) {
+        writer.write(e.toCsv());
+        n++;
+      }
+    }
+    return n;
+  }
+}
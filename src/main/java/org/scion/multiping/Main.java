@@ -32,6 +32,12 @@ public class Main {
           DownloadAssignments.main(newArgs);
           return;
         }
+      case "export-csv":
+        {
+          checkArgs(args, 3, 3);
+          ExportCsv.main(newArgs);
+          return;
+        }
       case "help":
         {
           printHelp(args.length == 1 ? "" : args[1]);
@@ -42,6 +48,11 @@ public class Main {
           PingAll.main(newArgs);
           return;
         }
+      case "ping-load":
+        {
+          PingLoad.main(newArgs);
+          return;
+        }
       case "ping-repeat":
         {
           checkArgs(args, 1, 1);
@@ -73,9 +84,15 @@ public class Main {
       case "download-assignments":
         printUsageDownloadAssignments();
         return;
+      case "export-csv":
+        printUsageExportCsv();
+        return;
       case "ping-all":
         printUsagePingAll();
         return;
+      case "ping-load":
+        printUsagePingLoad();
+        return;
       case "ping-repeat":
         printUsagePingRepeat();
         return;
@@ -97,6 +114,10 @@ public class Main {
         "    - `ping-repeat` for repeatedly probing (traceroute) multiple paths to multiple ASes.");
     Util.println(
         "    - `ping-responder` for starting a server that responds to incoming echo requests.");
+    Util.println(
+        "    - `ping-load` for measuring how many echo requests per second a responder can handle.");
+    Util.println(
+        "    - `export-csv` for converting a binary `ping-repeat` result file to CSV.");
     Util.println("    - `help [MODE]` for getting more help for a given mode.");
     Util.println("");
   }
@@ -110,9 +131,18 @@ public class Main {
     Util.println("");
   }
 
+  private static void printUsageExportCsv() {
+    Util.println("Usage: scion-multiping export-csv <input file> <output file>");
+    Util.println();
+    Util.println(
+        "  This tool converts a binary result file of `ping-repeat` (`\"outputFormat\": \"binary\"`)");
+    Util.println("  to the CSV format that `ping-repeat` writes by default.");
+    Util.println("");
+  }
+
   static void printUsagePingAll() {
     Util.println(
-        "Usage: ping-all [--help] [--fastest|--shortest|--shortest_echo|--fastest_sync] [--port <port>] [--shim]");
+        "Usage: ping-all [--help] [--fastest|--shortest|--shortest_echo|--fastest_sync] [--port <port>] [--concurrent <n>] [--rate <pps>] [--percentiles <list>] [--shim]");
     Util.println("  --help              Show this help message.");
     Util.println("  --fastest           Use fastest path with SCMP traceroute (default).");
     Util.println(
@@ -122,10 +152,41 @@ public class Main {
     // Util.println("  --shortest_echo     Use shortest path with SCMP echo");
     Util.println(
         "  --port <port>       Use specified local port (default " + PingAll.localPort + ").");
+    Util.println(
+        "  --concurrent <n>    Probe up to <n> ASes concurrently (default "
+            + PingAll.concurrency
+            + ").");
+    Util.println("                      Only supported with --fastest.");
+    Util.println("  --rate <pps>        Send at most <pps> probes per second (default unlimited).");
+    Util.println("  --percentiles <list>");
+    Util.println("                      Comma separated percentiles for the summary");
+    Util.println("                      (default 50,90,99,99.9).");
     Util.println("  --shim              Start with SHIM enabled (default disabled).");
     Util.println("");
   }
 
+  static void printUsagePingLoad() {
+    Util.println(
+        "Usage: scion-multiping ping-load <ISD-AS>,<IP> [--help] [--port <port>] [--remote-port <port>] [--remote-ports <n>] [--start <pps>] [--step <pps>] [--max <pps>] [--duration <sec>] [--max-loss <percent>] [--max-p99 <ms>]");
+    Util.println();
+    Util.println("  This tool sends SCMP echo requests to a `ping-responder` at increasing rates.");
+    Util.println("  It stops when the loss or the p99 latency exceed the given limits.");
+    Util.println("  --help              Show this help message.");
+    Util.println("  --port <port>       Use specified local port (default: any).");
+    Util.println("  --remote-port <port>");
+    Util.println("                      Port of the responder (default 30041).");
+    Util.println("  --remote-ports <n>  Spread the requests over n consecutive ports, starting with");
+    Util.println("                      --remote-port, e.g. for responder workers (default 1).");
+    Util.println("  --start <pps>       Rate of the first step (default 1000).");
+    Util.println("  --step <pps>        Rate increase per step (default 1000).");
+    Util.println("  --max <pps>         Maximum rate (default 100000).");
+    Util.println("  --duration <sec>    Duration of each step (default 5).");
+    Util.println("  --max-loss <percent>");
+    Util.println("                      Maximum loss in percent (default 1).");
+    Util.println("  --max-p99 <ms>      Maximum p99 RTT in milliseconds (default 100).");
+    Util.println("");
+  }
+
   private static void printUsagePingRepeat() {
     Util.println("Usage: scion-multiping ping-repeat");
     Util.println();
@@ -21,14 +21,17 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.scion.jpan.*;
 import org.scion.jpan.internal.Shim;
-import org.scion.jpan.internal.header.PathRawParser;
 import org.scion.multiping.util.*;
 
 /**
@@ -50,25 +53,31 @@ import org.scion.multiping.util.*;
  */
 public class PingAll {
   private static final int REPEAT = 3;
+  private static final int RESPONSE_TIMEOUT_MS = 1100;
   private static final boolean SHOW_ONLY_ICMP = false;
   private static final Config config = new Config();
 
   static int localPort = 30041;
+  static int concurrency = 1;
   private static boolean startShim = false;
 
   static {
     config.tryICMP = false;
+    config.icmpRepeatCnt = REPEAT;
     if (SHOW_ONLY_ICMP) {
       DELAYED_PRINT = true;
     }
   }
 
-  private final Set<Long> listedAs = new HashSet<>();
-  private final Set<Long> seenAs = new HashSet<>();
+  private final ConcurrentLongSet listedAs = new ConcurrentLongSet();
+  private final ConcurrentLongSet seenAs = new ConcurrentLongSet();
   private final ResultSummary summary = new ResultSummary();
+  // Console output waits for ICMP results while the next ASes are probed.
+  private final OrderedOutput output = new OrderedOutput();
 
   private final ScionProvider service;
   private final Policy policy;
+  private final int maxInFlight;
 
   enum Policy {
     /** Fastest path using SCMP traceroute */
@@ -85,8 +94,13 @@ public class PingAll {
   private static final boolean SHOW_PATH = false;
 
   PingAll(Policy policy, ScionProvider service) {
+    this(policy, service, 1);
+  }
+
+  PingAll(Policy policy, ScionProvider service, int maxInFlight) {
     this.policy = policy;
     this.service = service;
+    this.maxInFlight = maxInFlight;
   }
 
   public static void main(String[] argsArray) throws IOException {
@@ -104,12 +118,19 @@ public class PingAll {
     println("  ICMP=" + config.tryICMP);
     println("  printOnlyICMP=" + SHOW_ONLY_ICMP);
     println("  Local port=" + localPort);
+    println("  Concurrent ASes=" + concurrency);
+    println(
+        "  Probe rate=" + (config.probeRatePps > 0 ? config.probeRatePps + "pps" : "unlimited"));
     println("  JPAN SHIM active=" + Shim.isInstalled());
 
     long t1 = System.currentTimeMillis();
-    PingAll pingAll = new PingAll(policy, ScionProvider.defaultProvider(localPort));
+    ScionProvider service = ScionProvider.defaultProvider(localPort);
+    service.setPacer(ProbePacer.create(config));
+    PingAll pingAll = new PingAll(policy, service, concurrency);
     pingAll.run();
     pingAll.summary.prettyPrint(config);
+    service.getPacer().printStats();
+    PathInfo.printStats();
     long t2 = System.currentTimeMillis();
     println("Total time: " + round((t2 - t1) / 1000.0, 2) + "s");
   }
@@ -153,6 +174,51 @@ public class PingAll {
           }
           args.remove(1);
           break;
+        case "--concurrent":
+          if (args.size() < 2) {
+            Util.println("Error: --concurrent requires a number of ASes");
+            Main.printUsagePingAll();
+            System.exit(1);
+          }
+          try {
+            concurrency = Integer.parseInt(args.get(1));
+          } catch (NumberFormatException e) {
+            Util.println("Error: Invalid number of ASes: " + args.get(1));
+            Main.printUsagePingAll();
+            System.exit(1);
+          }
+          args.remove(1);
+          break;
+        case "--rate":
+          if (args.size() < 2) {
+            Util.println("Error: --rate requires a number of packets per second");
+            Main.printUsagePingAll();
+            System.exit(1);
+          }
+          try {
+            config.probeRatePps = Double.parseDouble(args.get(1));
+          } catch (NumberFormatException e) {
+            Util.println("Error: Invalid rate: " + args.get(1));
+            Main.printUsagePingAll();
+            System.exit(1);
+          }
+          args.remove(1);
+          break;
+        case "--percentiles":
+          if (args.size() < 2) {
+            Util.println("Error: --percentiles requires a list of percentiles");
+            Main.printUsagePingAll();
+            System.exit(1);
+          }
+          try {
+            config.summaryPercentiles = parsePercentiles(args.get(1));
+          } catch (IllegalArgumentException e) {
+            Util.println("Error: Invalid percentiles: " + args.get(1));
+            Main.printUsagePingAll();
+            System.exit(1);
+          }
+          args.remove(1);
+          break;
         default:
           Util.println("Unknown option: " + args.get(0));
           Main.printUsagePingAll();
@@ -163,67 +229,161 @@ public class PingAll {
     return policy;
   }
 
+  static double[] parsePercentiles(String list) {
+    double[] percentiles =
+        Arrays.stream(list.split(",")).mapToDouble(Double::parseDouble).toArray();
+    for (double p : percentiles) {
+      if (p < 0 || p > 100) {
+        throw new IllegalArgumentException("Invalid percentile: " + p);
+      }
+    }
+    return percentiles;
+  }
+
   ResultSummary run() throws IOException {
     List<ParseAssignments.HostEntry> allASes = service.getIsdAsEntries();
     // remove entry for local AS
     long localAS = service.getLocalIsdAs();
     allASes = allASes.stream().filter(e -> e.getIsdAs() != localAS).collect(Collectors.toList());
     // Process all ASes
-    for (ParseAssignments.HostEntry e : allASes) {
-      print(ScionUtil.toStringIA(e.getIsdAs()) + "\t \"" + e.getName() + "\"\t  ");
-      runAS(e);
-      listedAs.add(e.getIsdAs());
+    if (maxInFlight > 1 && policy == Policy.FASTEST_TR_ASYNC) {
+      runConcurrent(allASes);
+    } else {
+      for (ParseAssignments.HostEntry e : allASes) {
+        runAS(e);
+        listedAs.add(e.getIsdAs());
+      }
     }
+    output.flush();
 
     // Try to identify ASes that occur in any paths but that are not on the public list.
-    for (Long isdAs : seenAs) {
-      if (!listedAs.contains(isdAs)) {
-        summary.incSeenButNotListed();
-      }
-    }
+    seenAs.forEach(
+        isdAs -> {
+          if (!listedAs.contains(isdAs)) {
+            summary.incSeenButNotListed();
+          }
+        });
     return summary;
   }
 
   private void runAS(ParseAssignments.HostEntry remote) throws IOException {
     summary.incIsdAsTried(remote.getIsdAs());
-    // Dummy address. The traceroute will contact the control service IP instead.
-    InetSocketAddress destinationAddress =
-        new InetSocketAddress(InetAddress.getByAddress(new byte[] {0, 0, 0, 0}), 30041);
     int nPaths;
     Scmp.TimedMessage[] msgs = new Scmp.TimedMessage[REPEAT];
     Ref<Path> bestPath = Ref.empty();
+    Ref<String> error = Ref.empty();
     try {
-      List<Path> paths = service.getPaths(remote.getIsdAs(), destinationAddress);
+      List<Path> paths = service.getPaths(remote.getIsdAs(), createDummyAddress());
       if (paths.isEmpty()) {
-        String src = ScionUtil.toStringIA(service.getLocalIsdAs());
-        String dst = ScionUtil.toStringIA(remote.getIsdAs());
-        if (SHOW_ONLY_ICMP) {
-          clearPrintQueue();
-        } else {
-          println("WARNING: No path found from " + src + " to " + dst);
-        }
-        summary.incAsNoPathFound(remote.getIsdAs());
-        summary.add(new Result(remote, Result.State.NO_PATH));
+        reportNoPath(remote);
         return;
       }
       nPaths = paths.size();
       summary.checkTotalMax(remote.getIsdAs(), paths.size());
-      msgs[0] = findPaths(paths, bestPath, remote.getIsdAs());
-      // bestPath is null if all paths have timed out
-      if (msgs[0] != null && bestPath.get() != null && REPEAT > 1) {
-        try (ScionProvider.Sync sender = service.getSync()) {
-          for (int i = 1; i < msgs.length; i++) {
-            List<Scmp.TracerouteMessage> messages = sender.sendTracerouteRequest(bestPath.get());
-            msgs[i] = messages.get(messages.size() - 1);
-          }
+      msgs[0] = findPaths(paths, bestPath, error, remote.getIsdAs());
+      repeatSync(msgs, bestPath);
+    } catch (ScionRuntimeException e) {
+      reportError(remote, e);
+      return;
+    }
+    reportResult(remote, nPaths, msgs, bestPath, error.get());
+  }
+
+  /**
+   * Probe many ASes at the same time over a single shared sender. Up to "maxInFlight" ASes are
+   * probed concurrently. Results are evaluated and printed strictly in the order of the input list.
+   */
+  private void runConcurrent(List<ParseAssignments.HostEntry> allASes) throws IOException {
+    SharedResponseHandler handler = new SharedResponseHandler();
+    Deque<AsProbe> inFlight = new ArrayDeque<>();
+    try (ScionProvider.Async sender = service.getAsync(handler)) {
+      for (ParseAssignments.HostEntry e : allASes) {
+        inFlight.addLast(startAS(e, sender, handler));
+        if (inFlight.size() >= maxInFlight) {
+          finishAS(inFlight, sender, handler);
         }
       }
+      while (!inFlight.isEmpty()) {
+        finishAS(inFlight, sender, handler);
+      }
+    }
+  }
+
+  private AsProbe startAS(
+      ParseAssignments.HostEntry remote, ScionProvider.Async sender, SharedResponseHandler handler)
+      throws IOException {
+    summary.incIsdAsTried(remote.getIsdAs());
+    AsProbe probe = new AsProbe(remote);
+    try {
+      probe.paths = service.getPaths(remote.getIsdAs(), createDummyAddress());
     } catch (ScionRuntimeException e) {
-      printlnERROR(e.getMessage());
-      summary.incAsError(remote.getIsdAs());
-      summary.add(new Result(remote, Result.State.ERROR));
+      probe.error = e;
+      return probe;
+    }
+    if (probe.paths.isEmpty()) {
+      return probe;
+    }
+    summary.checkTotalMax(remote.getIsdAs(), probe.paths.size());
+    probe.handler = new PingResponseHandler(probe.paths.size());
+    try {
+      for (Path path : probe.paths) {
+        summary.incPathTried();
+        int sequenceId = sender.sendTracerouteLast(path);
+        probe.sequenceIds.add(sequenceId);
+        handler.register(sequenceId, probe);
+      }
+    } catch (IOException e) {
+      probe.sendError = e;
+    }
+    // Start the timeout only after sending, the sender may be paced.
+    probe.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESPONSE_TIMEOUT_MS);
+    return probe;
+  }
+
+  private void finishAS(
+      Deque<AsProbe> inFlight, ScionProvider.Async sender, SharedResponseHandler handler)
+      throws IOException {
+    AsProbe probe = inFlight.getFirst();
+    boolean complete = probe.handler == null || handler.await(probe, inFlight);
+    handler.unregister(probe);
+    inFlight.removeFirst();
+
+    ParseAssignments.HostEntry remote = probe.remote;
+    listedAs.add(remote.getIsdAs());
+    if (probe.error != null) {
+      reportError(remote, probe.error);
+      return;
+    }
+    if (probe.paths.isEmpty()) {
+      reportNoPath(remote);
       return;
     }
+
+    Scmp.TimedMessage[] msgs = new Scmp.TimedMessage[REPEAT];
+    Ref<Path> bestPath = Ref.empty();
+    Ref<String> error = Ref.empty();
+    if (probe.sendError != null) {
+      error.set(probe.sendError.getMessage());
+      summary.incAsError(remote.getIsdAs());
+    } else if (!complete) {
+      error.set("Missing messages: " + probe.handler.getMissing() + "/" + probe.paths.size());
+      summary.incAsError(remote.getIsdAs());
+    } else {
+      msgs[0] = evaluateTraceAsync(probe.handler, bestPath, error, remote.getIsdAs());
+      repeatAsync(remote, msgs, bestPath, sender, handler, inFlight);
+    }
+    reportResult(remote, probe.paths.size(), msgs, bestPath, error.get());
+  }
+
+  /**
+   * @param error error message if there is no result, i.e. msgs[0] is null.
+   */
+  private void reportResult(
+      ParseAssignments.HostEntry remote,
+      int nPaths,
+      Scmp.TimedMessage[] msgs,
+      Ref<Path> bestPath,
+      String error) {
     Scmp.TimedMessage bestMessage = null;
     for (Scmp.TimedMessage m : msgs) {
       if (bestMessage == null || m != null && m.getNanoSeconds() < bestMessage.getNanoSeconds()) {
@@ -234,68 +394,162 @@ public class PingAll {
     summary.add(result);
 
     if (msgs[0] == null) {
-      clearPrintQueue();
+      String message = error != null ? error : "No reply";
+      output.submit(
+          () -> {
+            printName(remote);
+            printlnERROR(message);
+          });
       return;
     }
-
-    // ICMP ping
-    StringBuilder icmpMs = new StringBuilder();
-    for (int i = 0; i < REPEAT; i++) {
-      String icmpMsStr = ICMP.pingICMP(msgs[0].getPath().getRemoteAddress(), config);
-      icmpMs.append(icmpMsStr).append(" ");
-      if (icmpMsStr.startsWith("TIMEOUT") || icmpMsStr.startsWith("N/A")) {
-        break;
-      }
+    if (msgs[0].isTimedOut()) {
+      summary.incAsTimeout(remote.getIsdAs());
+    } else {
+      summary.incAsSuccess(remote.getIsdAs());
     }
-    result.setICMP(icmpMs.toString());
+
+    // ICMP ping, the output is printed when the result is available.
+    InetAddress remoteAddress = msgs[0].getPath().getRemoteAddress();
+    CompletableFuture<String> icmp = ICMP.pingICMPAsync(remoteAddress, config);
 
     // output
-    int nHops = PathRawParser.create(msgs[0].getPath().getRawPath()).getHopCount();
-    String addr = msgs[0].getPath().getRemoteAddress().getHostAddress();
-    print(addr + "\t  nPaths=" + nPaths + "\t  nHops=" + nHops + "\t  time=");
+    int nHops = PathInfo.get(msgs[0].getPath()).getHopCount();
+    StringBuilder line = new StringBuilder(remoteAddress.getHostAddress());
+    line.append("\t  nPaths=").append(nPaths).append("\t  nHops=").append(nHops);
+    line.append("\t  time=");
     for (Scmp.TimedMessage m : msgs) {
       if (m == null) {
-        print("N/A ");
+        line.append("N/A ");
         continue;
       }
       double millis = round(m.getNanoSeconds() / (double) 1_000_000, 2);
-      print(millis + "ms ");
+      line.append(millis).append("ms ");
     }
-    String icmpStr = icmpMs.toString();
-    if (config.tryICMP) {
-      print("  ICMP= " + icmpStr);
+    String pathStr = SHOW_PATH ? "  " + PathInfo.get(bestPath.get()).getPathString() : "";
+    output.submit(
+        icmp,
+        icmpStr -> {
+          result.setICMP(icmpStr);
+          printName(remote);
+          print(line.toString());
+          if (config.tryICMP) {
+            print("  ICMP= " + icmpStr);
+          }
+          print(pathStr);
+          if (SHOW_ONLY_ICMP && (icmpStr.startsWith("N/A") || icmpStr.startsWith("TIMEOUT"))) {
+            clearPrintQueue();
+          } else {
+            println();
+          }
+        });
+  }
+
+  /** Repeat the traceroute on the best path, see {@link #REPEAT}. */
+  private void repeatSync(Scmp.TimedMessage[] msgs, Ref<Path> bestPath) throws IOException {
+    // bestPath is null if all paths have timed out
+    if (msgs[0] == null || bestPath.get() == null || REPEAT <= 1) {
+      return;
     }
-    if (SHOW_PATH) {
-      print("  " + ScionUtil.toStringPath(bestPath.get().getMetadata()));
+    try (ScionProvider.Sync sender = service.getSync()) {
+      for (int i = 1; i < msgs.length; i++) {
+        List<Scmp.TracerouteMessage> messages = sender.sendTracerouteRequest(bestPath.get());
+        msgs[i] = messages.get(messages.size() - 1);
+      }
     }
-    if (SHOW_ONLY_ICMP && (icmpStr.startsWith("N/A") || icmpStr.startsWith("TIMEOUT"))) {
-      clearPrintQueue();
-    } else {
-      println();
+  }
+
+  /**
+   * Repeat the traceroute on the best path over the shared sender. Responses for other ASes that
+   * arrive in the meantime are dispatched as usual, so their probes cannot time out while we wait.
+   */
+  private void repeatAsync(
+      ParseAssignments.HostEntry remote,
+      Scmp.TimedMessage[] msgs,
+      Ref<Path> bestPath,
+      ScionProvider.Async sender,
+      SharedResponseHandler handler,
+      Deque<AsProbe> inFlight)
+      throws IOException {
+    if (msgs[0] == null || bestPath.get() == null || REPEAT <= 1) {
+      return;
     }
-    if (msgs[0].isTimedOut()) {
-      summary.incAsTimeout(remote.getIsdAs());
-    } else {
-      summary.incAsSuccess(remote.getIsdAs());
+    AsProbe repeat = new AsProbe(remote);
+    repeat.handler = new PingResponseHandler(REPEAT - 1);
+    for (int i = 1; i < REPEAT; i++) {
+      int sequenceId = sender.sendTracerouteLast(bestPath.get());
+      repeat.sequenceIds.add(sequenceId);
+      handler.register(sequenceId, repeat);
+    }
+    repeat.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESPONSE_TIMEOUT_MS);
+    // Put it first in line so that SCMP errors from this AS are attributed to it.
+    inFlight.addFirst(repeat);
+    try {
+      handler.await(repeat, inFlight);
+    } finally {
+      inFlight.removeFirst();
+      handler.unregister(repeat);
     }
+    for (int i = 1; i < REPEAT; i++) {
+      msgs[i] = repeat.handler.messages.get(repeat.sequenceIds.get(i - 1));
+    }
+  }
+
+  private void reportNoPath(ParseAssignments.HostEntry remote) {
+    String src = ScionUtil.toStringIA(service.getLocalIsdAs());
+    String dst = ScionUtil.toStringIA(remote.getIsdAs());
+    output.submit(
+        () -> {
+          if (SHOW_ONLY_ICMP) {
+            clearPrintQueue();
+          } else {
+            printName(remote);
+            println("WARNING: No path found from " + src + " to " + dst);
+          }
+        });
+    summary.incAsNoPathFound(remote.getIsdAs());
+    summary.add(new Result(remote, Result.State.NO_PATH));
+  }
+
+  private void reportError(ParseAssignments.HostEntry remote, ScionRuntimeException e) {
+    output.submit(
+        () -> {
+          printName(remote);
+          printlnERROR(e.getMessage());
+        });
+    summary.incAsError(remote.getIsdAs());
+    summary.add(new Result(remote, Result.State.ERROR));
+  }
+
+  private static void printName(ParseAssignments.HostEntry remote) {
+    print(ScionUtil.toStringIA(remote.getIsdAs()) + "\t \"" + remote.getName() + "\"\t  ");
+  }
+
+  private static InetSocketAddress createDummyAddress() throws IOException {
+    // Dummy address. The traceroute will contact the control service IP instead.
+    return new InetSocketAddress(InetAddress.getByAddress(new byte[] {0, 0, 0, 0}), 30041);
   }
 
-  private Scmp.TimedMessage findPaths(List<Path> paths, Ref<Path> bestOut, long isdAs) {
+  /**
+   * @param errorOut receives an error message if the result is null
+   */
+  private Scmp.TimedMessage findPaths(
+      List<Path> paths, Ref<Path> bestOut, Ref<String> errorOut, long isdAs) {
     switch (policy) {
       case FASTEST_TR:
-        return findFastestTR(paths, bestOut, isdAs);
+        return findFastestTR(paths, bestOut, errorOut, isdAs);
       case FASTEST_TR_ASYNC:
-        return findFastestTraceAsync(paths, bestOut, isdAs);
+        return findFastestTraceAsync(paths, bestOut, errorOut, isdAs);
       case SHORTEST_TR:
-        return findShortestTR(paths, bestOut, isdAs);
+        return findShortestTR(paths, bestOut, errorOut, isdAs);
       case SHORTEST_ECHO:
-        return findShortestEcho(paths, bestOut, isdAs);
+        return findShortestEcho(paths, bestOut, errorOut, isdAs);
       default:
         throw new UnsupportedOperationException();
     }
   }
 
-  private Scmp.EchoMessage findShortestEcho(List<Path> paths, Ref<Path> refBest, long isdAs) {
+  private Scmp.EchoMessage findShortestEcho(
+      List<Path> paths, Ref<Path> refBest, Ref<String> errorOut, long isdAs) {
     Path path = PathPolicy.MIN_HOPS.filter(paths).get(0);
     refBest.set(path);
     ByteBuffer bb = ByteBuffer.allocate(0);
@@ -311,13 +565,14 @@ public class PingAll {
       summary.incPathSuccess();
       return msg;
     } catch (IOException e) {
-      printlnERROR(e.getMessage());
+      errorOut.set(e.getMessage());
       summary.incAsError(isdAs);
       return null;
     }
   }
 
-  private Scmp.TracerouteMessage findShortestTR(List<Path> paths, Ref<Path> refBest, long isdAs) {
+  private Scmp.TracerouteMessage findShortestTR(
+      List<Path> paths, Ref<Path> refBest, Ref<String> errorOut, long isdAs) {
     Path path = PathPolicy.MIN_HOPS.filter(paths).get(0);
     refBest.set(path);
     try (ScionProvider.Sync sender = service.getSync()) {
@@ -337,13 +592,14 @@ public class PingAll {
       summary.incPathSuccess();
       return msg;
     } catch (IOException e) {
-      printlnERROR(e.getMessage());
+      errorOut.set(e.getMessage());
       summary.incAsError(isdAs);
       return null;
     }
   }
 
-  private Scmp.TracerouteMessage findFastestTR(List<Path> paths, Ref<Path> refBest, long isdAs) {
+  private Scmp.TracerouteMessage findFastestTR(
+      List<Path> paths, Ref<Path> refBest, Ref<String> errorOut, long isdAs) {
     Scmp.TracerouteMessage best = null;
     try (ScionProvider.Sync sender = service.getSync()) {
       for (Path path : paths) {
@@ -369,14 +625,14 @@ public class PingAll {
       }
       return best;
     } catch (IOException e) {
-      printlnERROR(e.getMessage());
+      errorOut.set(e.getMessage());
       summary.incAsError(isdAs);
       return null;
     }
   }
 
   private Scmp.TracerouteMessage findFastestTraceAsync(
-      List<Path> paths, Ref<Path> refBest, long isdAs) {
+      List<Path> paths, Ref<Path> refBest, Ref<String> errorOut, long isdAs) {
     PingResponseHandler handler = new PingResponseHandler(paths.size());
 
     // Send all requests
@@ -389,12 +645,18 @@ public class PingAll {
       // Wait for all messages to be received, BEFORE closing the "sender".
       handler.await();
     } catch (IOException e) {
-      printlnERROR(e.getMessage());
+      errorOut.set(e.getMessage());
       summary.incAsError(isdAs);
       return null;
     }
 
+    return evaluateTraceAsync(handler, refBest, errorOut, isdAs);
+  }
+
+  private Scmp.TracerouteMessage evaluateTraceAsync(
+      PingResponseHandler handler, Ref<Path> refBest, Ref<String> errorOut, long isdAs) {
     if (handler.hasErrors() && handler.messages.isEmpty()) {
+      errorOut.set("Errors on all paths: " + handler.errors.get() + "/" + handler.nPaths);
       summary.incAsError(isdAs);
       return null;
     }
@@ -460,7 +722,7 @@ public class PingAll {
 
     void await() {
       try {
-        if (!barrier.await(1100, TimeUnit.MILLISECONDS)) {
+        if (!barrier.await(RESPONSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
           throw new IllegalStateException("Missing messages: " + barrier.getCount() + "/" + nPaths);
         }
       } catch (InterruptedException e) {
@@ -472,5 +734,132 @@ public class PingAll {
     public boolean hasErrors() {
       return errors.get() > 0;
     }
+
+    boolean isComplete() {
+      return barrier.getCount() == 0;
+    }
+
+    long getMissing() {
+      return barrier.getCount();
+    }
+  }
+
+  /** State of an AS that is probed concurrently with other ASes. */
+  private static class AsProbe {
+    private final ParseAssignments.HostEntry remote;
+    private final List<Integer> sequenceIds = new ArrayList<>();
+    private List<Path> paths;
+    private ScionRuntimeException error;
+    private IOException sendError;
+    private PingResponseHandler handler;
+    private long deadline;
+
+    private AsProbe(ParseAssignments.HostEntry remote) {
+      this.remote = remote;
+    }
+  }
+
+  /**
+   * Response handler for a sender that is shared by all concurrently probed ASes. Responses are
+   * only queued by the receiver thread. They are dispatched to the handler of the respective AS on
+   * the probing thread, so sequence IDs are always registered before their responses are looked up.
+   */
+  private static class SharedResponseHandler implements ScmpSenderAsync.ResponseHandler {
+    private final BlockingQueue<Scmp.Message> received = new LinkedBlockingQueue<>();
+    private final Queue<Throwable> exceptions = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, AsProbe> probes = new HashMap<>();
+
+    @Override
+    public void onResponse(Scmp.TimedMessage msg) {
+      received.add(msg);
+    }
+
+    @Override
+    public void onTimeout(Scmp.TimedMessage msg) {
+      received.add(msg);
+    }
+
+    @Override
+    public void onError(Scmp.ErrorMessage msg) {
+      received.add(msg);
+    }
+
+    @Override
+    public void onException(Throwable t) {
+      exceptions.add(t);
+    }
+
+    void register(int sequenceId, AsProbe probe) {
+      probes.put(sequenceId, probe);
+    }
+
+    void unregister(AsProbe probe) {
+      for (int sequenceId : probe.sequenceIds) {
+        probes.remove(sequenceId);
+      }
+    }
+
+    /**
+     * Dispatch received messages until all messages for the given probe have arrived.
+     *
+     * @return false if the deadline of the probe passed before all messages arrived.
+     */
+    boolean await(AsProbe probe, Deque<AsProbe> inFlight) {
+      while (!probe.handler.isComplete()) {
+        while (!exceptions.isEmpty()) {
+          probe.handler.onException(exceptions.remove());
+        }
+        // Process responses that have already arrived before checking the deadline. The probing
+        // thread may have been busy elsewhere, e.g. in getPaths(), while they were queued.
+        Scmp.Message queued = received.poll();
+        if (queued != null) {
+          dispatch(queued, inFlight);
+          continue;
+        }
+        long remainingNanos = probe.deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+          return probe.handler.isComplete();
+        }
+        try {
+          Scmp.Message msg = received.poll(remainingNanos, TimeUnit.NANOSECONDS);
+          if (msg != null) {
+            dispatch(msg, inFlight);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        }
+      }
+      return true;
+    }
+
+    private void dispatch(Scmp.Message msg, Deque<AsProbe> inFlight) {
+      if (msg instanceof Scmp.TimedMessage) {
+        Scmp.TimedMessage timedMsg = (Scmp.TimedMessage) msg;
+        AsProbe probe = probes.remove(timedMsg.getSequenceNumber());
+        if (probe == null) {
+          return; // Response for an AS that has already been reported
+        }
+        if (timedMsg.isTimedOut()) {
+          probe.handler.onTimeout(timedMsg);
+        } else {
+          probe.handler.onResponse(timedMsg);
+        }
+        return;
+      }
+      // Error messages have no sequence ID. Attribute them to the AS that sent them, if it is
+      // currently probed, otherwise to the oldest AS in flight.
+      long isdAs = msg.getPath().getRemoteIsdAs();
+      AsProbe target = inFlight.getFirst();
+      for (AsProbe probe : inFlight) {
+        if (probe.remote.getIsdAs() == isdAs && probe.handler != null) {
+          target = probe;
+          break;
+        }
+      }
+      if (target.handler != null) {
+        target.handler.onError((Scmp.ErrorMessage) msg);
+      }
+    }
   }
 }
@@ -0,0 +1,384 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping;
+
+import static org.scion.multiping.util.Util.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.scion.jpan.*;
+import org.scion.multiping.util.Config;
+import org.scion.multiping.util.Counter;
+import org.scion.multiping.util.LatencyHistogram;
+import org.scion.multiping.util.ProbePacer;
+import org.scion.multiping.util.ScionProvider;
+
+/**
+ * Load generator for measuring the capacity of a {@link PingResponder}.<br>
+ * The destination is probed with SCMP echo requests at an open-loop rate, i.e. requests are sent at
+ * the target rate regardless of whether responses arrive. The rate starts at "loadStartPps" and is
+ * increased by "loadStepPps" after every step of "loadStepDurationSec" seconds. The test stops when
+ * a step exceeds "loadMaxLossPercent" or "loadMaxP99Ms", or when "loadMaxPps" is reached.
+ *
+ * <p>Every step reports the achieved send rate, the RTT percentiles, the loss and the errors.
+ * Errors, i.e. SCMP error messages and send or receive failures, are not counted as loss.
+ *
+ * <p>With "--remote-ports n", the requests are spread round-robin over n consecutive ports,
+ * starting with "--remote-port". This is meant for a {@link PingResponder} with several workers.
+ */
+public class PingLoad {
+  private static final Config config = new Config();
+  private static int localPort = -1;
+  private static int remotePort = 30041;
+  private static int remotePortCount = 1;
+
+  private final ScionProvider service;
+  private final Config settings;
+
+  /** Load step with a fixed target rate. Receives the responses to its requests. */
+  static class Step implements ScmpSenderAsync.ResponseHandler {
+    private final double targetPps;
+    private final CountDownLatch outstanding;
+    private final LatencyHistogram rtt = new LatencyHistogram();
+    private final Counter nSent = new Counter();
+    private final Counter nReceived = new Counter();
+    private final Counter nTimeout = new Counter();
+    private final Counter nError = new Counter();
+    private final Counter nSendError = new Counter();
+    private double achievedPps;
+
+    private Step(double targetPps, int nRequests) {
+      this.targetPps = targetPps;
+      this.outstanding = new CountDownLatch(nRequests);
+    }
+
+    @Override
+    public void onResponse(Scmp.TimedMessage msg) {
+      synchronized (rtt) {
+        rtt.add(msg.getNanoSeconds() / 1_000_000.0);
+      }
+      nReceived.inc();
+      outstanding.countDown();
+    }
+
+    @Override
+    public void onTimeout(Scmp.TimedMessage msg) {
+      nTimeout.inc();
+      outstanding.countDown();
+    }
+
+    @Override
+    public void onError(Scmp.ErrorMessage msg) {
+      nError.inc();
+      outstanding.countDown();
+    }
+
+    @Override
+    public void onException(Throwable t) {
+      nError.inc();
+      outstanding.countDown();
+    }
+
+    private void await(long timeoutMs) {
+      try {
+        outstanding.await(timeoutMs, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+
+    public double getTargetPps() {
+      return targetPps;
+    }
+
+    public double getAchievedPps() {
+      return achievedPps;
+    }
+
+    public long getSentCount() {
+      return nSent.get();
+    }
+
+    public long getReceivedCount() {
+      return nReceived.get();
+    }
+
+    public long getTimeoutCount() {
+      return nTimeout.get();
+    }
+
+    public long getErrorCount() {
+      return nError.get();
+    }
+
+    public long getSendErrorCount() {
+      return nSendError.get();
+    }
+
+    /**
+     * @return Number of requests that failed with an error, see {@link #getErrorCount()} and {@link
+     *     #getSendErrorCount()}.
+     */
+    public long getTotalErrorCount() {
+      return nError.get() + nSendError.get();
+    }
+
+    /**
+     * @return Percentage of sent requests without response. Requests that failed with an error are
+     *     not counted.
+     */
+    public double getLossPercent() {
+      long expected = Math.max(0, nSent.get() - nError.get());
+      return expected == 0
+          ? 0
+          : 100.0 * (expected - Math.min(expected, nReceived.get())) / expected;
+    }
+
+    /**
+     * @param percentile percentile, e.g. 99.9
+     * @return RTT percentile in milliseconds or 0 if no response was received.
+     */
+    public double getRttPercentile(double percentile) {
+      synchronized (rtt) {
+        return rtt.getCount() == 0 ? 0 : rtt.getPercentile(percentile);
+      }
+    }
+
+    public double getRttMax() {
+      synchronized (rtt) {
+        return rtt.getCount() == 0 ? 0 : rtt.getMax();
+      }
+    }
+
+    boolean meetsSlo(Config config) {
+      return nReceived.get() > 0
+          && getLossPercent() <= config.loadMaxLossPercent
+          && getRttPercentile(99) <= config.loadMaxP99Ms;
+    }
+  }
+
+  PingLoad(ScionProvider service, Config settings) {
+    this.service = service;
+    this.settings = settings;
+  }
+
+  public static void main(String[] args) throws IOException {
+    PRINT = true;
+    if (args.length < 1 || args[0].startsWith("--")) {
+      Main.printUsagePingLoad();
+      System.exit(1);
+    }
+    parseArgs(Arrays.copyOfRange(args, 1, args.length));
+    String[] destination = args[0].split(",");
+    if (destination.length != 2) {
+      println("Error: Invalid destination: " + args[0]);
+      Main.printUsagePingLoad();
+      System.exit(1);
+    }
+    long isdAs = ScionUtil.parseIA(destination[0]);
+    InetSocketAddress address =
+        new InetSocketAddress(InetAddress.getByName(destination[1]), remotePort);
+
+    println("Settings:");
+    println("  Destination=" + ScionUtil.toStringIA(isdAs) + "," + address);
+    if (remotePortCount > 1) {
+      println("  Remote ports=" + remotePort + "-" + (remotePort + remotePortCount - 1));
+    }
+    println("  Local port=" + localPort);
+    println(
+        "  Rate="
+            + config.loadStartPps
+            + "pps, +"
+            + config.loadStepPps
+            + "pps every "
+            + config.loadStepDurationSec
+            + "s, up to "
+            + config.loadMaxPps
+            + "pps");
+    println(
+        "  SLO: loss <= " + config.loadMaxLossPercent + "%, p99 <= " + config.loadMaxP99Ms + "ms");
+
+    ScionProvider service = ScionProvider.defaultProvider(localPort);
+    // One path per remote port
+    List<Path> paths = new ArrayList<>();
+    for (int i = 0; i < remotePortCount; i++) {
+      InetSocketAddress portAddress = new InetSocketAddress(address.getAddress(), remotePort + i);
+      List<Path> candidates = service.getPaths(isdAs, portAddress);
+      if (candidates.isEmpty()) {
+        println("No path found to " + ScionUtil.toStringIA(isdAs));
+        System.exit(1);
+      }
+      paths.add(PathPolicy.MIN_HOPS.filter(candidates).get(0));
+    }
+    PingLoad load = new PingLoad(service, config);
+    List<Step> steps = load.run(paths);
+    println("Capacity: " + round(getCapacity(steps, config), 1) + "pps");
+  }
+
+  private static void parseArgs(String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      String option = args[i];
+      if ("--help".equals(option)) {
+        Main.printUsagePingLoad();
+        System.exit(0);
+      }
+      if (i + 1 >= args.length) {
+        println("Error: " + option + " requires a value");
+        Main.printUsagePingLoad();
+        System.exit(1);
+      }
+      String value = args[++i];
+      try {
+        switch (option) {
+          case "--port":
+            localPort = Integer.parseInt(value);
+            break;
+          case "--remote-port":
+            remotePort = Integer.parseInt(value);
+            break;
+          case "--remote-ports":
+            remotePortCount = Math.max(1, Integer.parseInt(value));
+            break;
+          case "--start":
+            config.loadStartPps = Double.parseDouble(value);
+            break;
+          case "--step":
+            config.loadStepPps = Double.parseDouble(value);
+            break;
+          case "--max":
+            config.loadMaxPps = Double.parseDouble(value);
+            break;
+          case "--duration":
+            config.loadStepDurationSec = Double.parseDouble(value);
+            break;
+          case "--max-loss":
+            config.loadMaxLossPercent = Double.parseDouble(value);
+            break;
+          case "--max-p99":
+            config.loadMaxP99Ms = Double.parseDouble(value);
+            break;
+          default:
+            println("Unknown option: " + option);
+            Main.printUsagePingLoad();
+            System.exit(1);
+        }
+      } catch (NumberFormatException e) {
+        println("Error: Invalid value for " + option + ": " + value);
+        Main.printUsagePingLoad();
+        System.exit(1);
+      }
+    }
+  }
+
+  /**
+   * Run load steps with increasing rate until the SLO is broken or the maximum rate is reached.
+   *
+   * @param path path to the responder
+   * @return All steps, including the step that broke the SLO.
+   */
+  List<Step> run(Path path) throws IOException {
+    return run(Collections.singletonList(path));
+  }
+
+  /**
+   * Run load steps with increasing rate until the SLO is broken or the maximum rate is reached.
+   *
+   * @param paths paths to the responder, e.g. to different ports. Requests are sent round-robin.
+   * @return All steps, including the step that broke the SLO.
+   */
+  List<Step> run(List<Path> paths) throws IOException {
+    if (paths.isEmpty()) {
+      throw new IllegalArgumentException("No path.");
+    }
+    if (settings.loadStartPps <= 0 || settings.loadStepDurationSec <= 0) {
+      throw new IllegalArgumentException("Rate and step duration must be positive.");
+    }
+    List<Step> steps = new ArrayList<>();
+    double rate = settings.loadStartPps;
+    while (rate <= settings.loadMaxPps) {
+      Step step = runStep(paths, rate);
+      steps.add(step);
+      boolean ok = step.meetsSlo(settings);
+      println(toString(steps.size(), step) + (ok ? "  SLO ok" : "  SLO broken"));
+      if (!ok || settings.loadStepPps <= 0) {
+        break;
+      }
+      rate += settings.loadStepPps;
+    }
+    return steps;
+  }
+
+  private Step runStep(List<Path> paths, double rate) throws IOException {
+    int nRequests = (int) Math.max(1, Math.round(rate * settings.loadStepDurationSec));
+    Step step = new Step(rate, nRequests);
+    // Allow a burst of 1ms worth of requests to compensate for the granularity of sleep().
+    ProbePacer pacer = new ProbePacer(rate, (int) Math.max(1, rate / 1000));
+    service.setPacer(pacer);
+    ByteBuffer empty = ByteBuffer.allocate(0);
+    // A new sender for every step, so that late responses are not counted in the next step.
+    try (ScionProvider.Async sender = service.getAsync(step)) {
+      for (int i = 0; i < nRequests; i++) {
+        try {
+          sender.sendEcho(paths.get(i % paths.size()), empty);
+          step.nSent.inc();
+        } catch (IOException e) {
+          step.nSendError.inc();
+          step.outstanding.countDown();
+        }
+      }
+      step.achievedPps = pacer.getAchievedRate();
+      step.await(settings.attemptTimeoutMs);
+    }
+    return step;
+  }
+
+  private String toString(int stepId, Step step) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Step ").append(stepId).append(": target=").append(round(step.targetPps, 1));
+    sb.append("pps  achieved=").append(round(step.achievedPps, 1));
+    sb.append("pps  sent=").append(step.getSentCount());
+    sb.append("  received=").append(step.getReceivedCount());
+    sb.append("  loss=").append(round(step.getLossPercent(), 2)).append("%");
+    sb.append("  errors=").append(step.getTotalErrorCount());
+    for (double p : settings.summaryPercentiles) {
+      sb.append("  ").append(toPercentileLabel(p)).append("=");
+      sb.append(round(step.getRttPercentile(p), 3)).append("ms");
+    }
+    sb.append("  max=").append(round(step.getRttMax(), 3)).append("ms");
+    return sb.toString();
+  }
+
+  /**
+   * @return The achieved rate of the last step that met the SLO, or 0.
+   */
+  static double getCapacity(List<Step> steps, Config config) {
+    double capacity = 0;
+    for (Step step : steps) {
+      if (!step.meetsSlo(config)) {
+        break;
+      }
+      capacity = step.getAchievedPps();
+    }
+    return capacity;
+  }
+}
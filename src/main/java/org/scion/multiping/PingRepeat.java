@@ -16,18 +16,24 @@ package org.scion.multiping;
 
 import static org.scion.multiping.util.Util.*;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.scion.jpan.*;
 import org.scion.jpan.internal.Shim;
-import org.scion.jpan.internal.header.PathRawParser;
 import org.scion.multiping.util.*;
 import org.scion.multiping.util.Record;
 
@@ -51,47 +57,86 @@ public class PingRepeat {
 
   private final InetSocketAddress dummyIP;
 
-  private int nPingTried = 0;
-  private int nPingSuccess = 0;
-  private int nPingTimeout = 0;
-  private int nPingError = 0;
-  private static int localPort = -1;
-
-  private static Config config;
-  private static FileWriter fileWriter;
+  private final Counter nPingTried = new Counter();
+  private final Counter nPingSuccess = new Counter();
+  private final Counter nPingTimeout = new Counter();
+  private final Counter nPingError = new Counter();
+  private final Counter nPingLate = new Counter();
+
+  private final Config config;
+  private final RecordWriter writer;
+  private final ScionProvider service;
+
+  // One sender and one table of outstanding requests for the whole run.
+  private final ResponseHandler handler = new ResponseHandler(nPingError);
+  private final InFlightTable<Record> inFlight = new InFlightTable<>();
+  private ScionProvider.Async sender;
+
+  // Records are reused, they are released by the writer.
+  private final RecordPool pool;
+  private final List<Record> recordList = new ArrayList<>();
+  private final Best best = new Best();
+  // Latency and loss per path over the whole run.
+  private final PathStatsTable pathStats;
+  // Timeout per path, learned over all attempts and rounds.
+  private final AdaptiveTimeouts timeouts;
+  // Deadline of the current attempt per record in recordList, see System.nanoTime().
+  private final long[] deadlines;
+  // Console output waits for ICMP results while the next destinations are probed.
+  private final OrderedOutput output = new OrderedOutput();
+
+  /** Best attempt of the current destination. */
+  private static class Best {
+    private Path path;
+    private InetAddress remoteAddress;
+    private Record.AttemptState state;
+    private double pingMs;
+
+    private void clear() {
+      path = null;
+      remoteAddress = null;
+      state = null;
+      pingMs = Double.MAX_VALUE;
+    }
+  }
 
   private static final boolean SHOW_PATH = true;
 
-  public PingRepeat() throws UnknownHostException {
+  PingRepeat(ScionProvider service, Config config, RecordWriter writer)
+      throws UnknownHostException {
     this.dummyIP = new InetSocketAddress(InetAddress.getByAddress(new byte[] {1, 2, 3, 4}), 12345);
+    this.service = service;
+    this.config = config;
+    this.writer = writer;
+    this.pool = new RecordPool(config.outputQueueSize + config.maxPathsPerDestination);
+    this.pathStats = new PathStatsTable(config.summaryPercentiles);
+    this.timeouts = new AdaptiveTimeouts(config);
+    this.deadlines = new long[config.maxPathsPerDestination];
   }
 
   public static void main(String[] args) throws IOException {
-    config = Config.read(FILE_CONFIG);
+    Config config = Config.read(FILE_CONFIG);
     PRINT = config.consoleOutput;
 
-    localPort = config.hasLocalPort() ? config.localPort : -1;
+    int localPort = config.hasLocalPort() ? config.localPort : -1;
     println("Settings");
     println(" Listening on port: " + localPort);
     println(" JPAN SHIM is running: " + Shim.isInstalled());
 
     // Output: ISD/AS, remote IP, time, hopCount, path, [pings]
-    fileWriter = new FileWriter(config.outputFile);
+    AsyncRecordWriter writer = AsyncRecordWriter.create(config);
+    // Write queued records also when the process is terminated.
+    Runtime.getRuntime().addShutdownHook(new Thread(writer::close));
 
-    PingRepeat demo = new PingRepeat();
+    ScionProvider service = ScionProvider.defaultProvider(localPort);
+    service.setPacer(ProbePacer.create(config));
+    PingRepeat demo = new PingRepeat(service, config, writer);
     List<ParseAssignments.HostEntry> list = ParseAssignments.getList(config.isdAsInputFile);
-    for (int i = 0; i < config.roundRepeatCnt; i++) {
-      Instant start = Instant.now();
-      for (ParseAssignments.HostEntry e : list) {
-        print(ScionUtil.toStringIA(e.getIsdAs()) + " " + e.getName() + "  ");
-        demo.runRepeat(e);
-      }
-      long usedMillis = Instant.now().toEpochMilli() - start.toEpochMilli();
-      if (usedMillis < config.roundDelaySec * 1000L) {
-        sleep(config.roundDelaySec * 1000L - usedMillis);
-      }
+    demo.run(list);
+    writer.close();
+    if (config.pathStatsFile == null) {
+      demo.printPathStats();
     }
-    fileWriter.close();
 
     println("");
     println("Ping Stats:");
@@ -99,87 +144,183 @@ public class PingRepeat {
     println(" success    = " + demo.nPingSuccess);
     println(" timeout    = " + demo.nPingTimeout);
     println(" error      = " + demo.nPingError);
-    println("ICMP Stats:");
-    println(" all        = " + ICMP.nIcmpTried);
-    println(" success    = " + ICMP.nIcmpSuccess);
-    println(" timeout    = " + ICMP.nIcmpTimeout);
-    println(" error      = " + ICMP.nIcmpError);
+    println(" late       = " + demo.nPingLate);
+    ICMP.printStats();
+    service.getPacer().printStats();
+    service.getPathCache().printStats();
+    PathInfo.printStats();
+    writer.printStats();
+  }
+
+  void run(List<ParseAssignments.HostEntry> list) throws IOException {
+    ExecutorService lookupPool =
+        Executors.newFixedThreadPool(
+            Math.max(1, config.pathLookupThreads),
+            r -> {
+              Thread t = new Thread(r, "path-lookup");
+              t.setDaemon(true);
+              return t;
+            });
+    try (ScionProvider.Async s = service.getAsync(handler)) {
+      sender = s;
+      for (int i = 0; i < config.roundRepeatCnt; i++) {
+        Instant start = Instant.now();
+        ICMP.newRound();
+        // Resolve the paths for all destinations before probing starts.
+        List<CompletableFuture<List<Path>>> lookups = prefetchPaths(list, lookupPool);
+        CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0]))
+            .handle((r, t) -> null)
+            .join();
+        Instant lookupDone = Instant.now();
+        for (int j = 0; j < list.size(); j++) {
+          runRepeat(list.get(j), lookups.get(j));
+        }
+        output.flush();
+        writer.endRound();
+        writePathStats();
+        Instant probingDone = Instant.now();
+        long lookupMillis = lookupDone.toEpochMilli() - start.toEpochMilli();
+        long probingMillis = probingDone.toEpochMilli() - lookupDone.toEpochMilli();
+        println("Round " + i + ": lookup=" + lookupMillis + "ms  probing=" + probingMillis + "ms");
+        long usedMillis = probingDone.toEpochMilli() - start.toEpochMilli();
+        if (usedMillis < config.roundDelaySec * 1000L) {
+          sleep(config.roundDelaySec * 1000L - usedMillis);
+        }
+      }
+    } finally {
+      sender = null;
+      lookupPool.shutdownNow();
+    }
+  }
+
+  /** Write the current per-path statistics, if a file is configured. */
+  void writePathStats() {
+    if (config.pathStatsFile != null) {
+      pathStats.write(Paths.get(config.pathStatsFile));
+    }
   }
 
-  private void runRepeat(ParseAssignments.HostEntry remote) {
-    ScionService service = Scion.defaultService();
+  void printPathStats() {
+    StringWriter out = new StringWriter();
+    try {
+      pathStats.write(out);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    println("");
+    println("Path Stats:");
+    print(out.toString());
+  }
+
+  PathStatsTable getPathStats() {
+    return pathStats;
+  }
+
+  long getTimeoutCount() {
+    return nPingTimeout.get();
+  }
+
+  private List<CompletableFuture<List<Path>>> prefetchPaths(
+      List<ParseAssignments.HostEntry> list, ExecutorService lookupPool) {
+    List<CompletableFuture<List<Path>>> lookups = new ArrayList<>(list.size());
+    for (ParseAssignments.HostEntry e : list) {
+      InetSocketAddress dstIP = getDestination(e);
+      lookups.add(
+          CompletableFuture.supplyAsync(() -> service.getPaths(e.getIsdAs(), dstIP), lookupPool));
+    }
+    return lookups;
+  }
+
+  private InetSocketAddress getDestination(ParseAssignments.HostEntry remote) {
     // Dummy address. The traceroute will contact the control service IP instead.
-    InetSocketAddress dstIP;
     if (remote.getIP() == null) {
-      dstIP = dummyIP;
-    } else {
-      dstIP = new InetSocketAddress(remote.getIP(), 30041);
+      return dummyIP;
     }
+    return new InetSocketAddress(remote.getIP(), 30041);
+  }
+
+  private static List<Path> getPaths(CompletableFuture<List<Path>> lookup) {
+    try {
+      return lookup.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private void runRepeat(ParseAssignments.HostEntry remote, CompletableFuture<List<Path>> lookup) {
+    String name = ScionUtil.toStringIA(remote.getIsdAs()) + " " + remote.getName() + "  ";
     int nPaths;
-    Record rec;
-    Ref<Record.Attempt> bestAttempt = Ref.empty();
     try {
-      List<Path> paths = service.getPaths(remote.getIsdAs(), dstIP);
+      List<Path> paths = getPaths(lookup);
       if (paths.isEmpty()) {
-        String src = ScionUtil.toStringIA(service.getLocalIsdAses().iterator().next());
+        String src = ScionUtil.toStringIA(service.getLocalIsdAs());
         String dst = ScionUtil.toStringIA(remote.getIsdAs());
-        println("WARNING: No path found from " + src + " to " + dst);
-        Record.createNoPathRecord(remote.getIsdAs(), fileWriter);
+        report(name + "WARNING: No path found from " + src + " to " + dst);
+        Record.createNoPathRecord(remote.getIsdAs(), writer);
         return;
       }
       nPaths = paths.size();
-      rec = measureLatency(paths, bestAttempt);
+      if (!measureLatency(name, paths)) {
+        return;
+      }
     } catch (ScionRuntimeException e) {
-      println("ERROR: " + e.getMessage());
-      Record.createErrorRecord(remote.getIsdAs(), fileWriter);
+      report(name + "ERROR: " + e.getMessage());
+      Record.createErrorRecord(remote.getIsdAs(), writer);
       return;
     }
 
-    if (rec == null) {
-      return;
-    }
-
-    // ICMP ping
-    String icmpMs = ICMP.pingICMP(rec.getPath().getRemoteAddress(), config);
-    rec.setICMP(icmpMs);
+    // ICMP ping, the output is printed when the result is available.
+    CompletableFuture<String> icmp = ICMP.pingICMPAsync(best.path.getRemoteAddress(), config);
 
     // output
-    int nHops = PathRawParser.create(rec.getPath().getRawPath()).getHopCount();
-    String out = rec.getRemoteIP() + "  nPaths=" + nPaths + "  nHops=" + nHops;
-    if (bestAttempt.get().getState() == Record.Attempt.State.SUCCESS) {
-      out += "  time=" + bestAttempt.get().getPingMs() + "ms";
+    int nHops = PathInfo.get(best.path).getHopCount();
+    String remoteIP = best.remoteAddress == null ? null : best.remoteAddress.getHostAddress();
+    String out = name + remoteIP + "  nPaths=" + nPaths + "  nHops=" + nHops;
+    if (best.state == Record.AttemptState.SUCCESS) {
+      out += "  time=" + best.pingMs + "ms";
     } else {
-      out += "  time=" + bestAttempt.get().getState();
+      out += "  time=" + best.state;
     }
-    out += "  ICMP=" + icmpMs;
-    if (SHOW_PATH) {
-      out += "  " + ScionUtil.toStringPath(rec.getPath().getMetadata());
-    }
-    println(out);
+    String prefix = out;
+    String suffix = SHOW_PATH ? "  " + PathInfo.get(best.path).getPathString() : "";
+    output.submit(icmp, icmpMs -> println(prefix + "  ICMP=" + icmpMs + suffix));
+  }
+
+  /** Print a line after all previous destinations have been printed. */
+  private void report(String line) {
+    output.submit(() -> println(line));
   }
 
-  private Record measureLatency(List<Path> paths, Ref<Record.Attempt> refBest) {
+  /**
+   * Measure the latency along all paths and write the results.
+   *
+   * @param name destination name for console output
+   * @param paths paths
+   * @return true if there is a result in "best".
+   */
+  private boolean measureLatency(String name, List<Path> paths) {
     ByteBuffer empty = ByteBuffer.allocate(0);
 
     // Create list of required paths/records
     int maxPath = Math.min(paths.size(), config.maxPathsPerDestination);
-    List<Record> recordList = initializeRecords(paths, maxPath);
-    if (recordList == null) {
-      return null;
+    if (!initializeRecords(name, paths, maxPath)) {
+      return false;
     }
 
-    Record best = null;
-    double currentBestMs = Double.MAX_VALUE;
-    ResponseHandler handler = new ResponseHandler();
-    try (ScmpSenderAsync sender =
-        Scmp.newSenderAsyncBuilder(handler).setLocalPort(localPort).build()) {
+    best.clear();
+    try {
       for (int attemptCount = 0; attemptCount < config.attemptRepeatCnt; attemptCount++) {
-        Instant start = Instant.now();
-        Map<Integer, Record> seqToPathMap = new HashMap<>();
+        long start = System.currentTimeMillis();
+        // Register replies that arrived during the attempt delay, so that they update the timeouts.
+        receiveQueued();
 
         // Send
-        for (Record rec : recordList) {
-          nPingTried++;
+        for (int i = 0; i < recordList.size(); i++) {
+          Record rec = recordList.get(i);
+          nPingTried.inc();
           int sequenceID;
           if (!rec.isEcho()) {
             sequenceID = sender.sendTracerouteLast(rec.getPath());
@@ -187,104 +328,241 @@ public class PingRepeat {
             sequenceID = sender.sendEcho(rec.getPath(), empty);
           }
           if (sequenceID < 0) {
-            rec.registerAttempt(Record.Attempt.State.ERROR_SEQID);
+            rec.registerAttempt(attemptCount, Record.AttemptState.ERROR_SEQID);
             throw new IllegalStateException();
           }
-          seqToPathMap.put(sequenceID, rec);
-        }
-
-        // Wait
-        while (handler.messages.size() + handler.errors.size() < maxPath) {
-          // TODO use notify/wait instead.
-          sleep(50);
+          // The tag identifies the attempt and the use of the (pooled) record.
+          long tag = ((long) rec.getGeneration() << 32) | attemptCount;
+          if (inFlight.put(sequenceID, rec, tag) != null) {
+            // The sequence ID wrapped around while the old request was still outstanding.
+            nPingTimeout.inc();
+          }
+          double timeoutMs = timeouts.getTimeoutMs(rec.getPath());
+          deadlines[i] = System.nanoTime() + (long) (timeoutMs * 1_000_000);
         }
 
-        // Receive
-        while (!handler.messages.isEmpty()) {
-          Scmp.TimedMessage msg = handler.messages.remove();
-          Record rec = seqToPathMap.get(msg.getSequenceNumber());
-          if (rec == null) {
-            println("ERROR: SeqID not found: " + msg.getSequenceNumber());
-            if (msg.isTimedOut()) {
-              nPingTimeout++;
-            } else {
-              nPingError++;
-            }
+        // Wait & receive, until all replies have arrived or all deadlines have passed
+        long deadline;
+        while ((deadline = nextDeadline(attemptCount)) != Long.MAX_VALUE) {
+          Scmp.Message received = handler.poll(deadline);
+          if (received == null) {
+            // Deadline passed: overdue requests are declared lost.
+            expireAttempts(attemptCount);
             continue;
           }
-          Record.Attempt attempt = rec.registerAttempt(msg);
-          if (msg.isTimedOut()) {
-            nPingTimeout++;
-          } else {
-            nPingSuccess++;
-          }
-
-          if (best == null || attempt.getPingMs() < currentBestMs) {
-            currentBestMs = attempt.getPingMs();
-            refBest.set(attempt);
-            best = rec;
-          }
-        }
 
-        while (!handler.errors.isEmpty()) {
-          nPingError++;
-          handler.errors.remove(); // TODO use it
+          receive(received);
         }
 
-        seqToPathMap.clear();
-
-        long usedMillis = Instant.now().toEpochMilli() - start.toEpochMilli();
+        long usedMillis = System.currentTimeMillis() - start;
         if (usedMillis < config.attemptDelayMs) {
           sleep(config.attemptDelayMs - usedMillis);
         }
       }
 
+      // Late replies to the last attempt are recorded if they arrived during the attempt delay.
+      receiveQueued();
+      // The writer releases the records, so they must not be used afterwards.
       for (Record rec : recordList) {
-        rec.finishMeasurement(fileWriter);
+        pathStats.add(rec);
+        rec.finishMeasurement(writer);
       }
+      recordList.clear();
 
-      return best;
+      return best.path != null;
     } catch (IOException e) {
-      println("ERROR: " + e.getMessage());
-      nPingError++;
-      return null;
+      report(name + "ERROR: " + e.getMessage());
+      nPingError.inc();
+      return false;
+    } finally {
+      releaseRecords();
+    }
+  }
+
+  /** Return records that have not been written to the pool. */
+  private void releaseRecords() {
+    for (Record rec : recordList) {
+      rec.release();
+    }
+    recordList.clear();
+  }
+
+  /**
+   * Register a reply or error with its record.
+   *
+   * @param received message from the receiver thread
+   */
+  private void receive(Scmp.Message received) {
+    if (received instanceof Scmp.ErrorMessage) {
+      // Error messages carry no sequence ID, the attempt is resolved by its deadline.
+      nPingError.inc();
+      return;
+    }
+
+    Scmp.TimedMessage msg = (Scmp.TimedMessage) received;
+    long tag = inFlight.getTag(msg.getSequenceNumber());
+    Record rec = inFlight.remove(msg.getSequenceNumber());
+    if (rec == null) {
+      println("ERROR: SeqID not found: " + msg.getSequenceNumber());
+      if (msg.isTimedOut()) {
+        nPingTimeout.inc();
+      } else {
+        nPingError.inc();
+      }
+      return;
+    }
+    int attempt = (int) tag;
+    boolean isCurrent = rec.getGeneration() == (int) (tag >>> 32) && !rec.isFinished();
+    if (!isCurrent || !rec.registerAttempt(attempt, msg)) {
+      // The attempt has already been declared lost.
+      if (!msg.isTimedOut()) {
+        nPingLate.inc();
+        // Still measuring: record the actual round trip time. The attempt is then no longer counted
+        // as a timeout, so that the summary matches the records.
+        if (isCurrent && rec.registerLateReply(attempt, msg)) {
+          nPingTimeout.add(-1);
+          nPingSuccess.inc();
+        }
+        registerLateReply(msg);
+      }
+      return;
+    }
+    if (msg.isTimedOut()) {
+      nPingTimeout.inc();
+    } else {
+      nPingSuccess.inc();
+      timeouts.addSample(rec.getPath(), rec.getAttemptMs(attempt));
+    }
+    double pingMs = rec.getAttemptMs(attempt);
+    if (best.path == null || pingMs < best.pingMs) {
+      best.path = rec.getPath();
+      best.remoteAddress = rec.getRemoteAddress();
+      best.state = rec.getAttemptState(attempt);
+      best.pingMs = pingMs;
+    }
+  }
+
+  /** Register all replies that have already arrived, without waiting. */
+  private void receiveQueued() {
+    Scmp.Message received;
+    while ((received = handler.poll(System.nanoTime())) != null) {
+      receive(received);
     }
   }
 
-  private List<Record> initializeRecords(List<Path> paths, int maxPath) {
-    List<Record> recordList = new ArrayList<>();
-    for (int pathId = 0; pathId < maxPath; pathId++) {
-      Path path = paths.get(pathId);
-      Record rec = Record.startMeasurement(path, config.attemptRepeatCnt);
-      rec.isEcho(path.getRemoteAddress() != dummyIP.getAddress());
-      if (path.getRawPath().length == 0) {
-        println(" -> local AS, no timing available");
-        rec.setState(Record.State.LOCAL_AS);
-        rec.finishMeasurement(fileWriter);
-        return null;
+  /**
+   * @param attempt current attempt
+   * @return The earliest deadline of all records without result for the attempt, or Long.MAX_VALUE
+   *     if all records have a result.
+   */
+  private long nextDeadline(int attempt) {
+    long deadline = Long.MAX_VALUE;
+    for (int i = 0; i < recordList.size(); i++) {
+      if (recordList.get(i).getAttemptState(attempt) == null) {
+        deadline = Math.min(deadline, deadlines[i]);
+      }
+    }
+    return deadline;
+  }
+
+  /**
+   * Register a TIMEOUT for all records whose deadline has passed.
+   *
+   * @param attempt current attempt
+   */
+  private void expireAttempts(int attempt) {
+    long now = System.nanoTime();
+    for (int i = 0; i < recordList.size(); i++) {
+      if (deadlines[i] - now <= 0
+          && recordList.get(i).registerAttempt(attempt, Record.AttemptState.TIMEOUT)) {
+        nPingTimeout.inc();
+      }
+    }
+  }
+
+  /**
+   * A reply that arrived after its attempt was declared lost. The reply is used for learning the
+   * timeout and counted in the path statistics.
+   */
+  private void registerLateReply(Scmp.TimedMessage msg) {
+    Path path = msg.getRequest() == null ? null : msg.getRequest().getPath();
+    if (path == null) {
+      return;
+    }
+    double ms = msg.getNanoSeconds() / 1_000_000.0;
+    timeouts.addSample(path, ms);
+    InetAddress remote = msg.getPath().getRemoteAddress();
+    String remoteIP = remote == null ? null : remote.getHostAddress();
+    pathStats.addLate(path.getRemoteIsdAs(), remoteIP, PathInfo.get(path), ms);
+  }
+
+  private boolean initializeRecords(String name, List<Path> paths, int maxPath) {
+    recordList.clear();
+    boolean isComplete = false;
+    try {
+      for (int pathId = 0; pathId < maxPath; pathId++) {
+        Path path = paths.get(pathId);
+        Record rec = pool.startMeasurement(path, config.attemptRepeatCnt);
+        rec.isEcho(path.getRemoteAddress() != dummyIP.getAddress());
+        if (path.getRawPath().length == 0) {
+          report(name + " -> local AS, no timing available");
+          rec.setState(Record.State.LOCAL_AS);
+          rec.finishMeasurement(writer);
+          return false;
+        }
+        recordList.add(rec);
+      }
+      isComplete = true;
+      return true;
+    } finally {
+      if (!isComplete) {
+        releaseRecords();
       }
-      recordList.add(rec);
     }
-    return recordList;
   }
 
   private static class ResponseHandler implements ScmpSenderAsync.ResponseHandler {
-    final Queue<Scmp.TimedMessage> messages = new ConcurrentLinkedQueue<>();
-    final Queue<Scmp.ErrorMessage> errors = new ConcurrentLinkedQueue<>();
+    private final BlockingQueue<Scmp.Message> received = new LinkedBlockingQueue<>();
+    // Exceptions are counted directly on the receiver thread.
+    private final Counter exceptions;
+
+    private ResponseHandler(Counter exceptions) {
+      this.exceptions = exceptions;
+    }
 
     @Override
     public void onResponse(Scmp.TimedMessage msg) {
-      messages.add(msg);
+      received.add(msg);
     }
 
     @Override
     public void onTimeout(Scmp.TimedMessage msg) {
-      messages.add(msg);
+      received.add(msg);
     }
 
     @Override
     public void onError(Scmp.ErrorMessage msg) {
-      errors.add(msg);
+      received.add(msg);
+    }
+
+    @Override
+    public void onException(Throwable t) {
+      exceptions.inc();
+    }
+
+    /**
+     * Wait for the next message.
+     *
+     * @param deadline deadline in nanoseconds, see {@link System#nanoTime()}
+     * @return the next message or null if the deadline has passed.
+     */
+    Scmp.Message poll(long deadline) {
+      try {
+        return received.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
     }
   }
 }
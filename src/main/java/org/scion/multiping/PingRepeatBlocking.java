@@ -25,7 +25,6 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import org.scion.jpan.*;
-import org.scion.jpan.internal.header.PathRawParser;
 import org.scion.multiping.util.*;
 import org.scion.multiping.util.Record;
 
@@ -60,7 +59,7 @@ public class PingRepeatBlocking {
   private int nPathTimeout = 0;
 
   private static Config config;
-  private static FileWriter fileWriter;
+  private static AsyncRecordWriter writer;
 
   private static final List<Result> results = new ArrayList<>();
 
@@ -85,22 +84,26 @@ public class PingRepeatBlocking {
     PRINT = config.consoleOutput;
 
     // Output: ISD/AS, remote IP, time, hopCount, path, [pings]
-    fileWriter = new FileWriter(config.outputFile);
+    writer = AsyncRecordWriter.create(config);
+    // Write queued records also when the process is terminated.
+    Runtime.getRuntime().addShutdownHook(new Thread(writer::close));
 
     PingRepeatBlocking demo = new PingRepeatBlocking();
     List<ParseAssignments.HostEntry> list = ParseAssignments.getList(config.isdAsInputFile);
     for (int i = 0; i < config.roundRepeatCnt; i++) {
       Instant start = Instant.now();
+      ICMP.newRound();
       for (ParseAssignments.HostEntry e : list) {
         print(ScionUtil.toStringIA(e.getIsdAs()) + " " + e.getName() + "  ");
         demo.runDemo(e);
       }
+      writer.endRound();
       long usedMillis = Instant.now().toEpochMilli() - start.toEpochMilli();
       if (usedMillis < config.roundDelaySec * 1000L) {
         sleep(config.roundDelaySec * 1000L - usedMillis);
       }
     }
-    fileWriter.close();
+    writer.close();
 
     // max:
     Result maxPing =
@@ -124,11 +127,9 @@ public class PingRepeatBlocking {
     println(" all        = " + demo.nPathTried);
     println(" success    = " + demo.nPathSuccess);
     println(" timeout    = " + demo.nPathTimeout);
-    println("ICMP Stats:");
-    println(" all        = " + ICMP.nIcmpTried);
-    println(" success    = " + ICMP.nIcmpSuccess);
-    println(" timeout    = " + ICMP.nIcmpTimeout);
-    println(" error      = " + ICMP.nIcmpError);
+    ICMP.printStats();
+    writer.printStats();
+    PathInfo.printStats();
   }
 
   private void runDemo(ParseAssignments.HostEntry remote) throws IOException {
@@ -171,12 +172,12 @@ public class PingRepeatBlocking {
 
     // output
     double millis = round(msg.getNanoSeconds() / (double) 1_000_000, 2);
-    int nHops = PathRawParser.create(msg.getPath().getRawPath()).getHopCount();
+    int nHops = PathInfo.get(msg.getPath()).getHopCount();
     String addr = msg.getPath().getRemoteAddress().getHostAddress();
     String out = addr + "  nPaths=" + nPaths + "  nHops=" + nHops;
     out += "  time=" + millis + "ms" + "  ICMP=" + icmpMs;
     if (SHOW_PATH) {
-      out += "  " + ScionUtil.toStringPath(bestPath.get().getMetadata());
+      out += "  " + PathInfo.get(bestPath.get()).getPathString();
     }
     println(out);
     if (msg.isTimedOut()) {
@@ -269,7 +270,7 @@ public class PingRepeatBlocking {
             println(" -> local AS, no timing available");
             nPathSuccess++;
             nAsSuccess++;
-            rec.finishMeasurement(fileWriter);
+            rec.finishMeasurement(writer);
             return null;
           }
 
@@ -291,7 +292,7 @@ public class PingRepeatBlocking {
             sleep(config.attemptDelayMs - usedMillis);
           }
         }
-        rec.finishMeasurement(fileWriter);
+        rec.finishMeasurement(writer);
       }
       return best;
     } catch (IOException e) {
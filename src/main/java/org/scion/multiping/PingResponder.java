@@ -18,35 +18,163 @@ import static org.scion.multiping.util.Util.PRINT;
 import static org.scion.multiping.util.Util.println;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.scion.jpan.*;
 import org.scion.multiping.util.Config;
-import org.scion.multiping.util.Util;
+import org.scion.multiping.util.ResponderStats;
 
-/** A simple echo responder that responds to SCMP echo requests. */
+/**
+ * A simple echo responder that responds to SCMP echo requests.<br>
+ * The responder runs "responderWorkers" (default: 1) worker responders, each with its own socket
+ * and thread. The workers listen on consecutive ports, starting with "localPort". SCION routers
+ * deliver echo requests only to "localPort", so additional workers only receive requests from
+ * clients that address their ports explicitly, e.g. "ping-load --remote-ports".
+ *
+ * <p>In quiet mode ("responderQuiet") requests are only counted, every worker has its own
+ * statistics. The aggregated statistics are printed every "responderReportIntervalSec" seconds and
+ * when the responder shuts down.
+ */
 public class PingResponder {
   private static final String FILE_CONFIG = "ping-responder-config.json";
+  private static final List<Worker> workers = new ArrayList<>();
+  private static final ResponderStats total = new ResponderStats();
+
+  private static class Worker {
+    private final int port;
+    private final ResponderStats stats = new ResponderStats();
+
+    private Worker(int port) {
+      this.port = port;
+    }
+  }
 
   public static void main(String[] args) throws IOException {
     Config config = Config.read(FILE_CONFIG);
     PRINT = config.consoleOutput;
 
-    try (ScmpResponder responder =
-        Scmp.newResponderBuilder().setLocalPort(config.getLocalPortOr30041()).build()) {
-      responder.setScmpErrorListener(PingResponder::printError);
+    int nWorkers = Math.max(1, config.responderWorkers);
+    for (int i = 0; i < nWorkers; i++) {
+      workers.add(new Worker(config.getLocalPortOr30041() + i));
+    }
+    println("Starting " + nWorkers + " responder(s) on port(s) " + getPortRange());
+
+    ScheduledExecutorService reporter = null;
+    if (config.responderQuiet) {
+      reporter = startReporter(config.responderReportIntervalSec);
+      Runtime.getRuntime().addShutdownHook(new Thread(PingResponder::printDetails));
+    }
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            nWorkers,
+            r -> {
+              Thread t = new Thread(r, "responder");
+              t.setDaemon(true);
+              return t;
+            });
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Worker worker : workers) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  run(worker, config.responderQuiet);
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+      if (reporter != null) {
+        reporter.shutdownNow();
+      }
+    }
+  }
+
+  private static String getPortRange() {
+    int first = workers.get(0).port;
+    int last = workers.get(workers.size() - 1).port;
+    return first == last ? Integer.toString(first) : first + "-" + last;
+  }
+
+  private static void run(Worker worker, boolean quiet) throws IOException {
+    try (ScmpResponder responder = Scmp.newResponderBuilder().setLocalPort(worker.port).build()) {
+      if (quiet) {
+        responder.setScmpErrorListener(worker.stats::onError);
+        responder.setScmpEchoListener(worker.stats::onRequest);
+      } else {
+        responder.setScmpErrorListener(PingResponder::printError);
+        responder.setScmpEchoListener(PingResponder::print);
+      }
       responder.setOption(ScionSocketOptions.SCION_API_THROW_PARSER_FAILURE, true);
-      responder.setScmpEchoListener(PingResponder::print);
       responder.start();
     }
   }
 
+  /** Aggregate the statistics of all workers. */
+  private static synchronized ResponderStats aggregate() {
+    total.clear();
+    for (Worker worker : workers) {
+      total.add(worker.stats);
+    }
+    return total;
+  }
+
+  private static ScheduledExecutorService startReporter(int intervalSec) {
+    if (intervalSec <= 0) {
+      return null;
+    }
+    ScheduledExecutorService reporter =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "responder-stats");
+              t.setDaemon(true);
+              return t;
+            });
+    reporter.scheduleAtFixedRate(
+        () -> println("Responder: " + aggregate().getSummaryLine()),
+        intervalSec,
+        intervalSec,
+        TimeUnit.SECONDS);
+    return reporter;
+  }
+
+  private static synchronized void printDetails() {
+    aggregate().printDetails();
+    if (workers.size() > 1) {
+      println("Requests per worker:");
+      for (Worker worker : workers) {
+        println(" port " + worker.port + "  " + worker.stats.getRequestCount());
+      }
+    }
+  }
+
   private static boolean print(Scmp.EchoMessage msg) {
-    Util.print(
+    // Print with a single call, workers may print concurrently.
+    println(
         "Received: "
             + msg.getTypeCode().getText()
             + " from "
             + msg.getPath().getRemoteAddress()
-            + "via ");
-    Util.println(ScionUtil.toStringPath(msg.getPath().getMetadata()));
+            + "via "
+            + ScionUtil.toStringPath(msg.getPath().getMetadata()));
     return true;
   }
 
@@ -0,0 +1,107 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.scion.jpan.Path;
+
+/**
+ * Timeouts per path, learned from the observed round-trip times, see {@link RttEstimator}.<br>
+ * A path uses its own estimate once it has received a reply. Until then, it uses twice the estimate
+ * of its destination ISD/AS, which learns from the replies along all paths to the destination. The
+ * margin is for paths that are slower than the answered ones. Without any reply from the
+ * destination, the timeout is {@link Config#attemptTimeoutMs}, which is also the ceiling. The floor
+ * is {@link Config#adaptiveTimeoutMinMs} or twice the smoothed RTT, whichever is larger.
+ *
+ * <p>Paths are identified by destination, path string and hop count, so they keep their estimate
+ * when they are refreshed.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class AdaptiveTimeouts {
+  // Raw paths change whenever paths are refreshed. Limit the memory used for old raw paths.
+  private static final int MAX_PATH_INFOS = 100_000;
+  // Margin for paths without replies over the estimate of their destination.
+  private static final double UNSAMPLED_FACTOR = 2;
+
+  private final boolean enabled;
+  private final double minTimeoutMs;
+  private final double maxTimeoutMs;
+  private final Map<PathInfo, RttEstimator> byPathInfo = new IdentityHashMap<>();
+  // key: ISD/AS + hop count + path
+  private final Map<String, RttEstimator> byPathString = new HashMap<>();
+  private final Map<Long, RttEstimator> byDestination = new HashMap<>();
+
+  public AdaptiveTimeouts(Config config) {
+    this.enabled = config.adaptiveTimeout;
+    this.minTimeoutMs = config.adaptiveTimeoutMinMs;
+    this.maxTimeoutMs = config.attemptTimeoutMs;
+  }
+
+  /**
+   * @param path path of the probe
+   * @return The timeout for a probe along the path in milliseconds.
+   */
+  public double getTimeoutMs(Path path) {
+    if (!enabled) {
+      return maxTimeoutMs;
+    }
+    RttEstimator e = getPathEstimator(path);
+    if (e.hasSamples()) {
+      return e.getTimeoutMs();
+    }
+    RttEstimator destination = byDestination.get(path.getRemoteIsdAs());
+    if (destination == null || !destination.hasSamples()) {
+      return maxTimeoutMs;
+    }
+    return Math.min(maxTimeoutMs, UNSAMPLED_FACTOR * destination.getTimeoutMs());
+  }
+
+  /**
+   * Add a round-trip time sample. Late replies should be added as well.
+   *
+   * @param path path of the probe
+   * @param rttMs round-trip time in milliseconds
+   */
+  public void addSample(Path path, double rttMs) {
+    if (enabled) {
+      getPathEstimator(path).addSample(rttMs);
+      byDestination.computeIfAbsent(path.getRemoteIsdAs(), k -> newEstimator()).addSample(rttMs);
+    }
+  }
+
+  private RttEstimator getPathEstimator(Path path) {
+    PathInfo info = PathInfo.get(path);
+    RttEstimator e = byPathInfo.get(info);
+    if (e == null) {
+      String key = path.getRemoteIsdAs() + "," + info.getHopCount() + info.getPathString();
+      e = byPathString.computeIfAbsent(key, k -> newEstimator());
+      if (byPathInfo.size() >= MAX_PATH_INFOS) {
+        byPathInfo.clear();
+      }
+      byPathInfo.put(info, e);
+    }
+    return e;
+  }
+
+  private RttEstimator newEstimator() {
+    return new RttEstimator(maxTimeoutMs, minTimeoutMs, maxTimeoutMs);
+  }
+
+  public int getPathCount() {
+    return byPathString.size();
+  }
+}
@@ -0,0 +1,262 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes records on a background thread.<br>
+ * Records are put into a bounded queue and written to the underlying writer in batches. The
+ * underlying writer is flushed when "batchSize" records have been written since the last flush, or
+ * when "flushIntervalMs" has passed. If the queue is full, write() blocks until there is space.
+ *
+ * <p>close() writes and flushes all queued records before closing the underlying writer.
+ */
+public class AsyncRecordWriter implements RecordWriter {
+  // Markers, compared by identity
+  private static final Record FLUSH = new Record(Instant.EPOCH, null, 0, 0);
+  private static final Record CLOSE = new Record(Instant.EPOCH, null, 0, 0);
+  private static final Record END_ROUND = new Record(Instant.EPOCH, null, 0, 0);
+
+  private final RecordWriter delegate;
+  private final BlockingQueue<Record> queue;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final Thread thread;
+  private volatile RuntimeException failure;
+  private boolean isClosed = false;
+
+  private final AtomicLong nEnqueued = new AtomicLong();
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+  private long nWritten = 0;
+  private long nFlushed = 0;
+  private long nBatches = 0;
+  private long totalWriteNanos = 0;
+  private long maxWriteNanos = 0;
+
+  public AsyncRecordWriter(
+      RecordWriter delegate, int queueSize, int batchSize, long flushIntervalMs) {
+    if (queueSize < 1 || batchSize < 1 || flushIntervalMs < 0) {
+      throw new IllegalArgumentException(
+          "Invalid queue/batch/interval: " + queueSize + "/" + batchSize + "/" + flushIntervalMs);
+    }
+    this.delegate = delegate;
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    this.thread = new Thread(this::run, "record-writer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Create a writer for the output file and output format of the configuration. */
+  public static AsyncRecordWriter create(Config config) throws IOException {
+    RecordWriter out = RecordWriter.create(config);
+    return new AsyncRecordWriter(
+        out, config.outputQueueSize, config.outputBatchSize, config.outputFlushIntervalMs);
+  }
+
+  @Override
+  public void write(Record rec) {
+    checkFailure();
+    synchronized (this) {
+      if (isClosed) {
+        throw new IllegalStateException("Writer is closed");
+      }
+    }
+    nEnqueued.incrementAndGet();
+    put(rec);
+    maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+  }
+
+  @Override
+  public void endRound() {
+    checkFailure();
+    put(END_ROUND);
+  }
+
+  @Override
+  public void flush() {
+    long target = nEnqueued.get();
+    put(FLUSH);
+    synchronized (this) {
+      while (nFlushed < target && failure == null && thread.isAlive()) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+    checkFailure();
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (isClosed) {
+        return;
+      }
+      isClosed = true;
+    }
+    put(CLOSE);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+    checkFailure();
+  }
+
+  private void put(Record rec) {
+    try {
+      queue.put(rec);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void checkFailure() {
+    if (failure != null) {
+      throw new IllegalStateException("Writing records failed", failure);
+    }
+  }
+
+  private void run() {
+    List<Record> batch = new ArrayList<>(batchSize);
+    int nUnflushed = 0;
+    long lastFlush = System.nanoTime();
+    boolean isClosing = false;
+    while (!isClosing) {
+      Record first;
+      try {
+        if (nUnflushed > 0) {
+          first =
+              queue.poll(lastFlush + flushIntervalNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } else {
+          first = queue.take();
+        }
+      } catch (InterruptedException e) {
+        // Not expected, try to write what we have.
+        first = CLOSE;
+      }
+      if (first != null) {
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+      }
+
+      long start = System.nanoTime();
+      boolean isFlushRequested = false;
+      int nBatchWritten = 0;
+      for (Record rec : batch) {
+        if (rec == FLUSH) {
+          isFlushRequested = true;
+        } else if (rec == CLOSE) {
+          isClosing = true;
+        } else if (rec == END_ROUND) {
+          write(delegate::endRound);
+        } else {
+          write(() -> delegate.write(rec));
+          nBatchWritten++;
+        }
+      }
+      batch.clear();
+      nUnflushed += nBatchWritten;
+
+      long now = System.nanoTime();
+      boolean isFlushDue = nUnflushed >= batchSize || now - lastFlush >= flushIntervalNanos;
+      if (isFlushRequested || isClosing || (nUnflushed > 0 && isFlushDue)) {
+        write(delegate::flush);
+        nUnflushed = 0;
+        lastFlush = System.nanoTime();
+      }
+      long writeNanos = System.nanoTime() - start;
+      synchronized (this) {
+        nWritten += nBatchWritten;
+        if (nUnflushed == 0) {
+          nFlushed = nWritten;
+        }
+        if (nBatchWritten > 0) {
+          nBatches++;
+          totalWriteNanos += writeNanos;
+          maxWriteNanos = Math.max(maxWriteNanos, writeNanos);
+        }
+        notifyAll();
+      }
+    }
+    write(delegate::close);
+  }
+
+  /** After a failure, records are discarded so that write() never blocks on a full queue. */
+  private void write(Runnable action) {
+    if (failure != null) {
+      return;
+    }
+    try {
+      action.run();
+    } catch (RuntimeException e) {
+      failure = e;
+    }
+  }
+
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  public int getMaxQueueDepth() {
+    return maxQueueDepth.get();
+  }
+
+  public synchronized long getWrittenCount() {
+    return nWritten;
+  }
+
+  public synchronized long getBatchCount() {
+    return nBatches;
+  }
+
+  /**
+   * @return The average time in milliseconds for writing (and flushing) one batch.
+   */
+  public synchronized double getAvgWriteMs() {
+    return nBatches == 0 ? 0 : totalWriteNanos / (double) nBatches / 1_000_000;
+  }
+
+  /**
+   * @return The maximum time in milliseconds for writing (and flushing) one batch.
+   */
+  public synchronized double getMaxWriteMs() {
+    return maxWriteNanos / (double) 1_000_000;
+  }
+
+  public void printStats() {
+    Util.println("Output Stats:");
+    Util.println(" records    = " + getWrittenCount());
+    Util.println(" batches    = " + getBatchCount());
+    Util.println(" max queue  = " + getMaxQueueDepth());
+    Util.println(" avg write  = " + Util.round(getAvgWriteMs(), 2) + "ms");
+    Util.println(" max write  = " + Util.round(getMaxWriteMs(), 2) + "ms");
+  }
+}
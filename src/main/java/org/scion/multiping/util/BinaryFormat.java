@@ -0,0 +1,75 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary output format for records.
+ *
+ * <p>The file starts with the 4 byte magic "SMPR" and a version byte, followed by the records:
+ *
+ * <pre>
+ * isdAs       8 bytes
+ * time        varint, zigzag encoded delta of epoch nanoseconds to the previous record
+ * flags       1 byte, 0x01 = ECHO, 0x02 = remote IP present
+ * state       1 byte, ordinal of {@link Record.State}
+ * remote IP   1 byte length + address bytes, only if flag 0x02 is set
+ * path ID     varint, see {@link PathDictionary}. If the path ID occurs for the first time, it is
+ *             followed by the path definition:
+ *               varint hop count
+ *               varint length + UTF-8 path string
+ * attempts    varint count, then for each attempt:
+ *               1 byte ordinal of {@link Record.AttemptState}
+ *               varint RTT in microseconds, only for SUCCESS
+ * </pre>
+ */
+final class BinaryFormat {
+  static final int MAGIC = 0x534d5052; // "SMPR"
+  static final int VERSION = 1;
+  static final int FLAG_ECHO = 0x01;
+  static final int FLAG_REMOTE_IP = 0x02;
+
+  private BinaryFormat() {}
+
+  static void writeVarLong(DataOutput out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  static long readVarLong(DataInput in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  static long zigZagEncode(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  static long zigZagDecode(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
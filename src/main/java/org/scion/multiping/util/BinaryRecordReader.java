@@ -0,0 +1,162 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/** Reads records in the binary format described in {@link BinaryFormat}. */
+public class BinaryRecordReader implements AutoCloseable {
+  private final DataInputStream in;
+  private final PathDictionary paths = new PathDictionary();
+  private long lastEpochNanos = 0;
+
+  /** A record as read from a binary file. */
+  public static class Entry {
+    private long isdAs;
+    private Instant time;
+    private boolean isEcho;
+    private Record.State state;
+    private String remoteIP;
+    private PathDictionary.Entry path;
+    private Record.AttemptState[] attemptStates;
+    private int[] attemptMicros;
+
+    public long getIsdAs() {
+      return isdAs;
+    }
+
+    public Instant getTime() {
+      return time;
+    }
+
+    public boolean isEcho() {
+      return isEcho;
+    }
+
+    public Record.State getState() {
+      return state;
+    }
+
+    public String getRemoteIP() {
+      return remoteIP;
+    }
+
+    public int getPathId() {
+      return path.getId();
+    }
+
+    public int getHopCount() {
+      return path.getHopCount();
+    }
+
+    public String getPath() {
+      return path.getPath();
+    }
+
+    public int getAttemptCount() {
+      return attemptStates.length;
+    }
+
+    public Record.AttemptState getAttemptState(int index) {
+      return attemptStates[index];
+    }
+
+    public int getAttemptMicros(int index) {
+      return attemptMicros[index];
+    }
+
+    /**
+     * @return The record in the same CSV format as written by {@link CsvRecordWriter}.
+     */
+    public String toCsv() {
+      StringBuilder out = new StringBuilder();
+      CsvRecordWriter.appendColumns(
+          out, isdAs, remoteIP, time, isEcho, state, getHopCount(), getPath());
+      for (int i = 0; i < attemptStates.length; i++) {
+        CsvRecordWriter.appendAttempt(out, attemptStates[i], attemptMicros[i]);
+      }
+      out.append(System.lineSeparator());
+      return out.toString();
+    }
+  }
+
+  public BinaryRecordReader(InputStream in) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(in));
+    int magic = this.in.readInt();
+    int version = this.in.readUnsignedByte();
+    if (magic != BinaryFormat.MAGIC || version != BinaryFormat.VERSION) {
+      throw new IOException("Unsupported file format: " + magic + "/" + version);
+    }
+  }
+
+  /**
+   * @return The next record or null at the end of the file.
+   * @throws IOException if reading fails or the file is truncated
+   */
+  public Entry next() throws IOException {
+    Entry e = new Entry();
+    try {
+      e.isdAs = in.readLong();
+    } catch (EOFException ex) {
+      return null;
+    }
+
+    lastEpochNanos += BinaryFormat.zigZagDecode(BinaryFormat.readVarLong(in));
+    e.time = Util.toInstant(lastEpochNanos);
+
+    int flags = in.readUnsignedByte();
+    e.isEcho = (flags & BinaryFormat.FLAG_ECHO) != 0;
+    e.state = Record.State.values()[in.readUnsignedByte()];
+    if ((flags & BinaryFormat.FLAG_REMOTE_IP) != 0) {
+      byte[] address = new byte[in.readUnsignedByte()];
+      in.readFully(address);
+      e.remoteIP = InetAddress.getByAddress(address).getHostAddress();
+    }
+
+    int pathId = (int) BinaryFormat.readVarLong(in);
+    e.path = paths.get(pathId);
+    if (e.path == null) {
+      if (pathId != paths.size()) {
+        throw new IOException("Unknown path ID: " + pathId);
+      }
+      int hopCount = (int) BinaryFormat.readVarLong(in);
+      byte[] path = new byte[(int) BinaryFormat.readVarLong(in)];
+      in.readFully(path);
+      e.path = paths.add(new String(path, StandardCharsets.UTF_8), hopCount);
+    }
+
+    int nAttempts = (int) BinaryFormat.readVarLong(in);
+    e.attemptStates = new Record.AttemptState[nAttempts];
+    e.attemptMicros = new int[nAttempts];
+    for (int i = 0; i < nAttempts; i++) {
+      e.attemptStates[i] = Record.AttemptState.values()[in.readUnsignedByte()];
+      if (e.attemptStates[i] == Record.AttemptState.SUCCESS) {
+        e.attemptMicros[i] = (int) BinaryFormat.readVarLong(in);
+      }
+    }
+    return e;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,111 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/** Writes records in the binary format described in {@link BinaryFormat}. */
+public class BinaryRecordWriter implements RecordWriter {
+  private final DataOutputStream out;
+  private final PathDictionary paths = new PathDictionary();
+  private long lastEpochNanos = 0;
+  private boolean isClosed = false;
+
+  public BinaryRecordWriter(OutputStream out) {
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+    try {
+      this.out.writeInt(BinaryFormat.MAGIC);
+      this.out.writeByte(BinaryFormat.VERSION);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void write(Record rec) {
+    try {
+      out.writeLong(rec.getIsdAs());
+
+      long epochNanos = rec.getEpochNanos();
+      BinaryFormat.writeVarLong(out, BinaryFormat.zigZagEncode(epochNanos - lastEpochNanos));
+      lastEpochNanos = epochNanos;
+
+      byte[] remoteIP = rec.getRemoteAddress() == null ? null : rec.getRemoteAddress().getAddress();
+      int flags = rec.isEcho() ? BinaryFormat.FLAG_ECHO : 0;
+      flags |= remoteIP != null ? BinaryFormat.FLAG_REMOTE_IP : 0;
+      out.writeByte(flags);
+      out.writeByte(rec.getState().ordinal());
+      if (remoteIP != null) {
+        out.writeByte(remoteIP.length);
+        out.write(remoteIP);
+      }
+
+      int nKnownPaths = paths.size();
+      PathDictionary.Entry path = paths.get(rec.getPath());
+      BinaryFormat.writeVarLong(out, path.getId());
+      if (path.getId() >= nKnownPaths) {
+        // First occurrence, add to dictionary
+        BinaryFormat.writeVarLong(out, path.getHopCount());
+        byte[] pathBytes = path.getPath().getBytes(StandardCharsets.UTF_8);
+        BinaryFormat.writeVarLong(out, pathBytes.length);
+        out.write(pathBytes);
+      }
+
+      int nAttempts = 0;
+      for (int i = 0; i < rec.getAttemptCount(); i++) {
+        nAttempts += rec.getAttemptState(i) == null ? 0 : 1;
+      }
+      BinaryFormat.writeVarLong(out, nAttempts);
+      for (int i = 0; i < rec.getAttemptCount(); i++) {
+        Record.AttemptState state = rec.getAttemptState(i);
+        if (state == null) {
+          continue;
+        }
+        out.writeByte(state.ordinal());
+        if (state == Record.AttemptState.SUCCESS) {
+          BinaryFormat.writeVarLong(out, rec.getAttemptMicros(i));
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    rec.release();
+  }
+
+  @Override
+  public void flush() {
+    try {
+      out.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (isClosed) {
+      return;
+    }
+    isClosed = true;
+    try {
+      out.close();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,154 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Thread-safe set of primitive longs, e.g. ISD/AS numbers.<br>
+ * The set is split into independently locked stripes, so concurrent updates rarely contend. Each
+ * stripe is an open addressing hash table without boxing.
+ *
+ * <p>Iteration with {@link #forEach(LongConsumer)} is weakly consistent: values that are added
+ * concurrently may or may not be visited.
+ */
+public class ConcurrentLongSet {
+  private static final int N_STRIPES = 16;
+  private static final int STRIPE_SHIFT = Integer.numberOfLeadingZeros(N_STRIPES - 1);
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final Stripe[] stripes = new Stripe[N_STRIPES];
+
+  private static class Stripe {
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+    private volatile int size = 0;
+
+    private synchronized boolean add(long key, int hash) {
+      int slot = find(keys, used, key, hash);
+      if (used[slot]) {
+        return false;
+      }
+      keys[slot] = key;
+      used[slot] = true;
+      size++;
+      // Keep the load factor below 0.5
+      if (size * 2 > keys.length) {
+        resize();
+      }
+      return true;
+    }
+
+    private synchronized boolean contains(long key, int hash) {
+      return used[find(keys, used, key, hash)];
+    }
+
+    private void resize() {
+      long[] newKeys = new long[keys.length * 2];
+      boolean[] newUsed = new boolean[keys.length * 2];
+      for (int i = 0; i < keys.length; i++) {
+        if (used[i]) {
+          int slot = find(newKeys, newUsed, keys[i], hash(keys[i]));
+          newKeys[slot] = keys[i];
+          newUsed[slot] = true;
+        }
+      }
+      keys = newKeys;
+      used = newUsed;
+    }
+
+    private synchronized long[] toArray() {
+      long[] result = new long[size];
+      int n = 0;
+      for (int i = 0; i < keys.length; i++) {
+        if (used[i]) {
+          result[n++] = keys[i];
+        }
+      }
+      return result;
+    }
+
+    private synchronized void clear() {
+      keys = new long[INITIAL_CAPACITY];
+      used = new boolean[INITIAL_CAPACITY];
+      size = 0;
+    }
+  }
+
+  public ConcurrentLongSet() {
+    for (int i = 0; i < N_STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /** Linear probing. Returns the slot of the key or the first free slot. */
+  private static int find(long[] keys, boolean[] used, long key, int hash) {
+    int mask = keys.length - 1;
+    int slot = hash & mask;
+    while (used[slot] && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private Stripe stripe(int hash) {
+    // The upper bits select the stripe, the lower bits the slot.
+    return stripes[hash >>> STRIPE_SHIFT];
+  }
+
+  /**
+   * @param key value
+   * @return true if the value was not in the set before.
+   */
+  public boolean add(long key) {
+    int hash = hash(key);
+    return stripe(hash).add(key, hash);
+  }
+
+  public boolean contains(long key) {
+    int hash = hash(key);
+    return stripe(hash).contains(key, hash);
+  }
+
+  public int size() {
+    int size = 0;
+    for (Stripe s : stripes) {
+      size += s.size;
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public void forEach(LongConsumer consumer) {
+    for (Stripe s : stripes) {
+      for (long key : s.toArray()) {
+        consumer.accept(key);
+      }
+    }
+  }
+
+  public void clear() {
+    for (Stripe s : stripes) {
+      s.clear();
+    }
+  }
+}
@@ -19,16 +19,46 @@ import java.io.*;
 
 public class Config {
   private static final int PORT_NOT_SET = -1;
+  public static final String OUTPUT_CSV = "csv";
+  public static final String OUTPUT_BINARY = "binary";
   public int attemptRepeatCnt = 5;
   public int attemptDelayMs = 100;
+  public int attemptTimeoutMs = 1500;
+  public boolean adaptiveTimeout = true;
+  public int adaptiveTimeoutMinMs = 200;
   public int roundRepeatCnt = 144; // 1 day
   public int roundDelaySec = 10 * 60; // 10 minutes
   public int maxPathsPerDestination = 20;
   public boolean tryICMP = false;
+  public int icmpRepeatCnt = 1;
+  public int icmpTimeoutMs = 1000;
+  public boolean icmpCache = true;
+  public double probeRatePps = 0; // 0 = unlimited
+  public int probeBurst = 10;
+  public int pathLookupThreads = 16;
+  public int outputQueueSize = 10_000;
+  public int outputBatchSize = 100;
+  public int outputFlushIntervalMs = 1000;
   public String isdAsInputFile;
   public String outputFile;
+  public String outputFormat = OUTPUT_CSV;
+  public boolean outputCompress = false;
+  public int outputRotateRounds = 0; // 0 = no rotation
+  public int outputRotateIntervalSec = 0; // 0 = no rotation
+  public long outputRotateBytes = 0; // 0 = no rotation
+  public String pathStatsFile; // null = print path stats at the end of the run
+  public double[] summaryPercentiles = {50, 90, 99, 99.9};
   public int localPort = PORT_NOT_SET;
   public boolean consoleOutput = true;
+  public int responderWorkers = 1;
+  public boolean responderQuiet = false;
+  public int responderReportIntervalSec = 10; // 0 = no periodic report
+  public double loadStartPps = 1000;
+  public double loadStepPps = 1000; // 0 = single step
+  public double loadMaxPps = 100_000;
+  public double loadStepDurationSec = 5;
+  public double loadMaxLossPercent = 1;
+  public double loadMaxP99Ms = 100;
 
   public boolean hasLocalPort() {
     return localPort != PORT_NOT_SET;
@@ -0,0 +1,53 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe counter for statistics.<br>
+ * Based on {@link LongAdder}, so concurrent updates from probing and receiver threads do not
+ * contend on a single memory location. Reading the value is more expensive than updating it.
+ */
+public class Counter {
+  private final LongAdder adder = new LongAdder();
+
+  public void inc() {
+    adder.increment();
+  }
+
+  public void add(long n) {
+    adder.add(n);
+  }
+
+  public long get() {
+    return adder.sum();
+  }
+
+  /**
+   * @return The current value. The counter is reset to 0.
+   */
+  public long getAndReset() {
+    return adder.sumThenReset();
+  }
+
+  public void reset() {
+    adder.reset();
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(get());
+  }
+}
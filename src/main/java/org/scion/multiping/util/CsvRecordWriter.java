@@ -0,0 +1,117 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.scion.multiping.util.Util.round;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import org.scion.jpan.ScionUtil;
+
+/**
+ * Writes one CSV line per record: ISD/AS, remote IP, time, ECHO/TRACE, state, hopCount, path,
+ * [pings].
+ */
+public class CsvRecordWriter implements RecordWriter {
+  private final Writer writer;
+  private final PathDictionary paths = new PathDictionary();
+  private boolean isClosed = false;
+
+  public CsvRecordWriter(Writer writer) {
+    this.writer = new BufferedWriter(writer);
+  }
+
+  @Override
+  public void write(Record rec) {
+    try {
+      writer.append(toCsv(rec));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    rec.release();
+  }
+
+  private String toCsv(Record rec) {
+    PathDictionary.Entry path = paths.get(rec.getPath());
+    StringBuilder out = new StringBuilder();
+    appendColumns(
+        out,
+        rec.getIsdAs(),
+        rec.getRemoteIP(),
+        rec.getTime(),
+        rec.isEcho(),
+        rec.getState(),
+        path.getHopCount(),
+        path.getPath());
+    for (int i = 0; i < rec.getAttemptCount(); i++) {
+      appendAttempt(out, rec.getAttemptState(i), rec.getAttemptMicros(i));
+    }
+    out.append(System.lineSeparator());
+    return out.toString();
+  }
+
+  static void appendColumns(
+      StringBuilder out,
+      long isdAs,
+      String remoteIP,
+      Instant time,
+      boolean isEcho,
+      Record.State state,
+      int nHops,
+      String path) {
+    out.append(ScionUtil.toStringIA(isdAs));
+    out.append(",").append(remoteIP == null ? "" : remoteIP);
+    out.append(",").append(time);
+    out.append(",").append(isEcho ? "ECHO" : "TRACE");
+    out.append(",").append(state.name());
+    out.append(",").append(nHops);
+    out.append(",").append(path);
+  }
+
+  /** Attempts without result (state == null) are skipped. */
+  static void appendAttempt(StringBuilder out, Record.AttemptState state, int micros) {
+    if (state == null) {
+      return;
+    }
+    if (state == Record.AttemptState.SUCCESS) {
+      out.append(",").append(round(micros / (double) 1_000, 2));
+    } else {
+      out.append(",").append(state.name());
+    }
+  }
+
+  @Override
+  public void flush() {
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (isClosed) {
+      return;
+    }
+    isClosed = true;
+    try {
+      writer.close();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -14,83 +14,132 @@
 
 package org.scion.multiping.util;
 
-import static org.scion.multiping.util.Util.round;
-import static org.scion.multiping.util.Util.sleep;
-
-import com.google.common.util.concurrent.AtomicDouble;
-import com.zaxxer.ping.IcmpPinger;
-import com.zaxxer.ping.PingResponseHandler;
-import com.zaxxer.ping.PingTarget;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
-import org.jetbrains.annotations.NotNull;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * ICMP echo comparison probes. All probes share one {@link IcmpEngine}, see {@link #pingICMP}.
+ *
+ * <p>Many destinations share the same remote IP, e.g. a border router. Results are cached per IP
+ * until the next round starts, see {@link #newRound()}. Concurrent requests for the same IP share a
+ * single probe.
+ */
 public class ICMP {
-  public static int nIcmpTried = 0;
-  public static int nIcmpSuccess = 0;
-  public static int nIcmpError = 0;
-  public static int nIcmpTimeout = 0;
+  public static final Counter nIcmpTried = new Counter();
+  public static final Counter nIcmpSuccess = new Counter();
+  public static final Counter nIcmpError = new Counter();
+  public static final Counter nIcmpTimeout = new Counter();
+  public static final Counter nIcmpCached = new Counter();
+  private static final Map<InetAddress, CompletableFuture<String>> cache =
+      new ConcurrentHashMap<>();
+  private static IcmpEngine engine;
 
+  /**
+   * Send ICMP echo requests and wait for the result.
+   *
+   * @param address remote address
+   * @param config config with repeat count and timeout
+   * @return "OFF", "N/A", "TIMEOUT", "ERROR" or the fastest ping time, e.g. "12.3ms"
+   */
   public static String pingICMP(InetAddress address, Config config) {
+    return pingICMPAsync(address, config).join();
+  }
+
+  /**
+   * Send ICMP echo requests without waiting for the result.
+   *
+   * @param address remote address
+   * @param config config with repeat count and timeout
+   * @return future with "OFF", "N/A", "TIMEOUT", "ERROR" or the fastest ping time, e.g. "12.3ms"
+   */
+  public static CompletableFuture<String> pingICMPAsync(InetAddress address, Config config) {
     if (!config.tryICMP) {
-      return "OFF";
+      return CompletableFuture.completedFuture("OFF");
+    }
+    if (isPrivate(address)) {
+      return CompletableFuture.completedFuture("N/A");
     }
+    if (!config.icmpCache) {
+      return probe(address, config);
+    }
+    boolean[] isNew = new boolean[1];
+    CompletableFuture<String> result =
+        cache.computeIfAbsent(
+            address,
+            a -> {
+              isNew[0] = true;
+              return probe(a, config);
+            });
+    if (!isNew[0]) {
+      nIcmpCached.inc();
+    }
+    return result;
+  }
+
+  private static CompletableFuture<String> probe(InetAddress address, Config config) {
+    nIcmpTried.inc();
+    return getEngine()
+        .ping(address, config.icmpRepeatCnt, config.icmpTimeoutMs)
+        .thenApply(
+            reply -> {
+              if (reply.isSuccess()) {
+                nIcmpSuccess.inc();
+              } else if (reply.isTimeout()) {
+                nIcmpTimeout.inc();
+              } else {
+                nIcmpError.inc();
+              }
+              return reply.toString();
+            });
+  }
+
+  /** Discard all cached results. Results of probes that are still in flight are discarded, too. */
+  public static void newRound() {
+    cache.clear();
+  }
+
+  public static void printStats() {
+    Util.println("ICMP Stats:");
+    Util.println(" all        = " + nIcmpTried);
+    Util.println(" success    = " + nIcmpSuccess);
+    Util.println(" timeout    = " + nIcmpTimeout);
+    Util.println(" error      = " + nIcmpError);
+    Util.println(" cached     = " + nIcmpCached);
+  }
+
+  private static synchronized IcmpEngine getEngine() {
+    if (engine == null) {
+      engine = new IcmpEngine();
+    }
+    return engine;
+  }
+
+  /** Use a different engine, e.g. for testing. */
+  static synchronized void setEngine(IcmpEngine newEngine) {
+    engine = newEngine;
+  }
+
+  private static boolean isPrivate(InetAddress address) {
     String ipStr = address.getHostAddress();
     if (address instanceof Inet4Address) {
       if (ipStr.startsWith("127.")
           || ipStr.startsWith("192.168.")
           || ipStr.startsWith("10.")
           || ipStr.startsWith("169.254.")) {
-        return "N/A";
+        return true;
       }
       if (ipStr.startsWith("172.")) {
         String[] split = ipStr.split("\\.");
         int part2 = Integer.parseInt(split[1]);
         if (part2 >= 16 && part2 < 31) {
-          return "N/A";
+          return true;
         }
       }
     }
-    if (address instanceof Inet6Address && ipStr.startsWith("fd")) {
-      return "N/A";
-    }
-
-    AtomicDouble seconds = new AtomicDouble(-2);
-    PingResponseHandler handler =
-        new PingResponseHandler() {
-          @Override
-          public void onResponse(@NotNull PingTarget pingTarget, double v, int i, int i1) {
-            seconds.set(v);
-          }
-
-          @Override
-          public void onTimeout(@NotNull PingTarget pingTarget) {
-            seconds.set(-1);
-          }
-        };
-
-    IcmpPinger pinger = new IcmpPinger(handler);
-    PingTarget target = new PingTarget(address);
-    Thread t = new Thread(pinger::runSelector);
-    t.start();
-    nIcmpTried++;
-
-    pinger.ping(target);
-    while (pinger.isPendingWork()) {
-      sleep(100);
-    }
-    pinger.stopSelector();
-    if (seconds.get() >= 0) {
-      nIcmpSuccess++;
-      double ms = seconds.get() * 1000;
-      return round(ms, 2) + "ms"; // milliseconds
-    }
-    if (seconds.get() == -1) {
-      nIcmpTimeout++;
-      return "TIMEOUT";
-    }
-    nIcmpError++;
-    return "ERROR";
+    return address instanceof Inet6Address && ipStr.startsWith("fd");
   }
 }
@@ -0,0 +1,265 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import com.zaxxer.ping.IcmpPinger;
+import com.zaxxer.ping.PingResponseHandler;
+import com.zaxxer.ping.PingTarget;
+import java.net.InetAddress;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Long-lived ICMP engine. All echo requests of the process share one pinger with one selector
+ * thread.<br>
+ * Requests for many targets can be outstanding at the same time. Results are delivered through
+ * futures that are completed by the selector thread or, if no reply arrives, by a timer. There is
+ * no polling.
+ */
+public class IcmpEngine implements AutoCloseable {
+  /** Result of an echo request. */
+  public static class Reply {
+    static final Reply TIMEOUT = new Reply(-1);
+    static final Reply ERROR = new Reply(-2);
+
+    private final double ms;
+
+    private Reply(double ms) {
+      this.ms = ms;
+    }
+
+    public static Reply of(double ms) {
+      return new Reply(ms);
+    }
+
+    public boolean isSuccess() {
+      return ms >= 0;
+    }
+
+    public boolean isTimeout() {
+      return this == TIMEOUT;
+    }
+
+    /**
+     * @return The round trip time in milliseconds, or a negative value if there was no reply.
+     */
+    public double getMs() {
+      return ms;
+    }
+
+    @Override
+    public String toString() {
+      if (isSuccess()) {
+        return Util.round(ms, 2) + "ms";
+      }
+      return isTimeout() ? "TIMEOUT" : "ERROR";
+    }
+  }
+
+  /** Sends echo requests. Exactly one callback per request should be invoked, from any thread. */
+  interface Transport extends AutoCloseable {
+    /**
+     * @param address target address
+     * @param timeoutMs time to wait for the reply
+     * @param callback callback
+     */
+    void ping(InetAddress address, int timeoutMs, Callback callback);
+
+    /**
+     * Forget a request that has timed out. Its callback must not be invoked afterwards.
+     *
+     * @param callback the callback of the request
+     */
+    default void cancel(Callback callback) {}
+
+    @Override
+    void close();
+  }
+
+  interface Callback {
+    void onResponse(double seconds);
+
+    void onTimeout();
+  }
+
+  private final Transport transport;
+  private final ScheduledExecutorService timer =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread t = new Thread(r, "icmp-timeout");
+            t.setDaemon(true);
+            return t;
+          });
+
+  public IcmpEngine() {
+    this(new JnbTransport());
+  }
+
+  IcmpEngine(Transport transport) {
+    this.transport = transport;
+  }
+
+  /**
+   * Send "repeatCount" echo requests to the address, one after the other.
+   *
+   * @param address target address
+   * @param repeatCount number of echo requests
+   * @param timeoutMs time to wait for each reply
+   * @return A future with the fastest reply. If there was no reply, the future holds a TIMEOUT
+   *     reply or, if the requests could not be sent, an ERROR reply.
+   */
+  public CompletableFuture<Reply> ping(InetAddress address, int repeatCount, int timeoutMs) {
+    CompletableFuture<Reply> result = new CompletableFuture<>();
+    ping(address, Math.max(1, repeatCount), timeoutMs, Reply.ERROR, result);
+    return result;
+  }
+
+  private void ping(
+      InetAddress address,
+      int remaining,
+      int timeoutMs,
+      Reply best,
+      CompletableFuture<Reply> result) {
+    pingOnce(address, timeoutMs)
+        .thenAccept(
+            reply -> {
+              Reply newBest = better(best, reply);
+              if (remaining > 1) {
+                ping(address, remaining - 1, timeoutMs, newBest, result);
+              } else {
+                result.complete(newBest);
+              }
+            });
+  }
+
+  private static Reply better(Reply best, Reply reply) {
+    if (reply.isSuccess()) {
+      return best.isSuccess() && best.getMs() <= reply.getMs() ? best : reply;
+    }
+    return best.isSuccess() || reply == Reply.ERROR ? best : reply;
+  }
+
+  private CompletableFuture<Reply> pingOnce(InetAddress address, int timeoutMs) {
+    CompletableFuture<Reply> future = new CompletableFuture<>();
+    // Whoever completes first (reply, library timeout or our timer) wins.
+    AtomicBoolean isDone = new AtomicBoolean();
+    Callback callback =
+        new Callback() {
+          @Override
+          public void onResponse(double seconds) {
+            if (isDone.compareAndSet(false, true)) {
+              future.complete(Reply.of(seconds * 1000));
+            }
+          }
+
+          @Override
+          public void onTimeout() {
+            if (isDone.compareAndSet(false, true)) {
+              future.complete(Reply.TIMEOUT);
+            }
+          }
+        };
+    ScheduledFuture<?> timeout =
+        timer.schedule(
+            () -> {
+              transport.cancel(callback);
+              callback.onTimeout();
+            },
+            timeoutMs,
+            TimeUnit.MILLISECONDS);
+    future.thenRun(() -> timeout.cancel(false));
+    try {
+      transport.ping(address, timeoutMs, callback);
+    } catch (RuntimeException e) {
+      if (isDone.compareAndSet(false, true)) {
+        future.complete(Reply.ERROR);
+      }
+    }
+    return future;
+  }
+
+  @Override
+  public void close() {
+    timer.shutdownNow();
+    transport.close();
+  }
+
+  /** Transport based on jnb-ping with a single selector thread. */
+  private static class JnbTransport implements Transport, PingResponseHandler {
+    private final IcmpPinger pinger = new IcmpPinger(this);
+    // Guarded by "this".
+    private final Map<PingTarget, Callback> pending = new IdentityHashMap<>();
+    private final Map<Callback, PingTarget> targets = new IdentityHashMap<>();
+
+    private JnbTransport() {
+      Thread t = new Thread(pinger::runSelector, "icmp-selector");
+      t.setDaemon(true);
+      t.start();
+    }
+
+    @Override
+    public void ping(InetAddress address, int timeoutMs, Callback callback) {
+      PingTarget target = new PingTarget(address, timeoutMs);
+      synchronized (this) {
+        pending.put(target, callback);
+        targets.put(callback, target);
+      }
+      pinger.ping(target);
+    }
+
+    @Override
+    public synchronized void cancel(Callback callback) {
+      PingTarget target = targets.remove(callback);
+      if (target != null) {
+        pending.remove(target);
+      }
+    }
+
+    private synchronized Callback remove(PingTarget target) {
+      Callback callback = pending.remove(target);
+      if (callback != null) {
+        targets.remove(callback);
+      }
+      return callback;
+    }
+
+    @Override
+    public void onResponse(@NotNull PingTarget target, double seconds, int bytes, int seq) {
+      Callback callback = remove(target);
+      if (callback != null) {
+        callback.onResponse(seconds);
+      }
+    }
+
+    @Override
+    public void onTimeout(@NotNull PingTarget target) {
+      Callback callback = remove(target);
+      if (callback != null) {
+        callback.onTimeout();
+      }
+    }
+
+    @Override
+    public void close() {
+      pinger.stopSelector();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scion.multiping.util;
+
+/**
+ * Table of outstanding requests, indexed by SCMP sequence number.<br>
+ * SCMP sequence numbers are only 16 bit wide, so they wrap around after 65536 requests. An entry
+ * that is still registered when its sequence number is reused is evicted and returned by {@link
+ * #put(int, Object, long)}.
+ *
+ * <p>Every entry carries an additional "tag", e.g. the attempt number of the request.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @param <T> Entry type
+ */
+public class InFlightTable<T> {
+  private static final int SIZE = 1 << 16;
+
+  private final Object[] entries = new Object[SIZE];
+  private final long[] tags = new long[SIZE];
+  private int size = 0;
+  private long nEvicted = 0;
+
+  public static int toIndex(int sequenceId) {
+    return sequenceId & (SIZE - 1);
+  }
+
+  /**
+   * @param sequenceId sequence ID of the request
+   * @param entry entry
+   * @param tag tag
+   * @return the entry that was still registered with the same (wrapped) sequence ID, or null.
+   */
+  public T put(int sequenceId, T entry, long tag) {
+    int index = toIndex(sequenceId);
+    T evicted = get(sequenceId);
+    if (evicted == null) {
+      size++;
+    } else {
+      nEvicted++;
+    }
+    entries[index] = entry;
+    tags[index] = tag;
+    return evicted;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T get(int sequenceId) {
+    return (T) entries[toIndex(sequenceId)];
+  }
+
+  public long getTag(int sequenceId) {
+    return tags[toIndex(sequenceId)];
+  }
+
+  public T remove(int sequenceId) {
+    int index = toIndex(sequenceId);
+    T entry = get(sequenceId);
+    if (entry != null) {
+      entries[index] = null;
+      size--;
+    }
+    return entry;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long getEvictedCount() {
+    return nEvicted;
+  }
+}
@@ -0,0 +1,148 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+/**
+ * Histogram with logarithmic buckets for estimating percentiles in constant memory.<br>
+ * Values between {@link #MIN_VALUE} and {@link #MAX_VALUE} are recorded with a relative error of
+ * less than {@link #PRECISION}/2. Smaller and larger values are clamped to the first and last
+ * bucket. Percentiles are always within the minimum and maximum recorded value.
+ *
+ * <p>Integer values below 100, e.g. hop counts, are recovered exactly by rounding percentiles.
+ *
+ * <p>Only the range of buckets between the smallest and largest recorded value is allocated. Values
+ * that are close together, e.g. latencies along a single path, need only a few hundred bytes.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class LatencyHistogram {
+  public static final double MIN_VALUE = 0.001;
+  public static final double MAX_VALUE = 1_000_000;
+  public static final double PRECISION = 0.01;
+  private static final double LOG_BASE = Math.log(1 + PRECISION);
+  private static final int N_BUCKETS =
+      2 + (int) Math.ceil(Math.log(MAX_VALUE / MIN_VALUE) / LOG_BASE);
+
+  private static final int MIN_GROWTH = 16;
+
+  private long[] counts = new long[0];
+  private int offset = 0; // bucket of counts[0]
+  private long count = 0;
+  private double min = Double.MAX_VALUE;
+  private double max = -Double.MAX_VALUE;
+
+  public void add(double value) {
+    int bucket = toBucket(value);
+    ensureBucket(bucket);
+    counts[bucket - offset]++;
+    count++;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  private void ensureBucket(int bucket) {
+    int end = offset + counts.length;
+    if (bucket >= offset && bucket < end) {
+      return;
+    }
+    // Grow by at least half of the current size to amortize copying.
+    int growth = Math.max(MIN_GROWTH, counts.length / 2);
+    int newOffset = offset;
+    int newEnd = end;
+    if (counts.length == 0) {
+      newOffset = Math.max(0, bucket - growth / 2);
+      newEnd = Math.min(N_BUCKETS, bucket + growth / 2);
+    } else if (bucket < offset) {
+      newOffset = Math.max(0, bucket - growth);
+    } else {
+      newEnd = Math.min(N_BUCKETS, bucket + growth);
+    }
+    long[] newCounts = new long[newEnd - newOffset];
+    if (counts.length > 0) {
+      System.arraycopy(counts, 0, newCounts, offset - newOffset, counts.length);
+    }
+    counts = newCounts;
+    offset = newOffset;
+  }
+
+  private static int toBucket(double value) {
+    if (value <= MIN_VALUE) {
+      return 0;
+    }
+    int bucket = 1 + (int) (Math.log(value / MIN_VALUE) / LOG_BASE);
+    return Math.min(bucket, N_BUCKETS - 1);
+  }
+
+  /**
+   * @return The geometric center of the bucket. The buckets for values out of range return 0 and
+   *     {@link Double#MAX_VALUE}, they are clamped to the minimum and maximum recorded value.
+   */
+  private static double fromBucket(int bucket) {
+    if (bucket == 0) {
+      return 0;
+    }
+    if (bucket == N_BUCKETS - 1) {
+      return Double.MAX_VALUE;
+    }
+    return MIN_VALUE * Math.exp((bucket - 0.5) * LOG_BASE);
+  }
+
+  /**
+   * @param percentile percentile between 0 and 100, e.g. 99.9
+   * @return The estimated value at the given percentile or -1 if no values have been recorded.
+   */
+  public double getPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Invalid percentile: " + percentile);
+    }
+    if (count == 0) {
+      return -1;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.max(min, Math.min(max, fromBucket(offset + i)));
+      }
+    }
+    return max;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return The minimum value or -1 if no values have been recorded.
+   */
+  public double getMin() {
+    return count == 0 ? -1 : min;
+  }
+
+  /**
+   * @return The maximum value or -1 if no values have been recorded.
+   */
+  public double getMax() {
+    return count == 0 ? -1 : max;
+  }
+
+  public void clear() {
+    counts = new long[0];
+    offset = 0;
+    count = 0;
+    min = Double.MAX_VALUE;
+    max = -Double.MAX_VALUE;
+  }
+}
@@ -0,0 +1,89 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Runs output tasks strictly in the order in which they were submitted, each one as soon as its
+ * input is available.<br>
+ * This allows starting slow work, e.g. ICMP probes, and continuing with the next destination while
+ * the console output still appears in the order of the input list.
+ *
+ * <p>This class is not thread-safe. Tasks are run by the thread that calls {@link #submit} or
+ * {@link #flush()}, never by the thread that completes the input.
+ */
+public class OrderedOutput {
+  private static final int DEFAULT_MAX_PENDING = 1000;
+
+  private final int maxPending;
+  private final Deque<Entry<?>> pending = new ArrayDeque<>();
+
+  private static class Entry<T> {
+    private final CompletableFuture<T> input;
+    private final Consumer<T> task;
+
+    private Entry(CompletableFuture<T> input, Consumer<T> task) {
+      this.input = input;
+      this.task = task;
+    }
+
+    private void run() {
+      task.accept(input.join());
+    }
+  }
+
+  public OrderedOutput() {
+    this(DEFAULT_MAX_PENDING);
+  }
+
+  /**
+   * @param maxPending maximum number of tasks that wait for their input. If there are more, {@link
+   *     #submit} blocks until the oldest input is available.
+   */
+  public OrderedOutput(int maxPending) {
+    this.maxPending = maxPending;
+  }
+
+  public <T> void submit(CompletableFuture<T> input, Consumer<T> task) {
+    pending.addLast(new Entry<>(input, task));
+    drain();
+  }
+
+  public void submit(Runnable task) {
+    submit(CompletableFuture.completedFuture(null), ignored -> task.run());
+  }
+
+  /** Run all tasks whose input is available, in order. */
+  public void drain() {
+    while (!pending.isEmpty()
+        && (pending.size() > maxPending || pending.getFirst().input.isDone())) {
+      pending.removeFirst().run();
+    }
+  }
+
+  /** Wait for all inputs and run all remaining tasks. */
+  public void flush() {
+    while (!pending.isEmpty()) {
+      pending.removeFirst().run();
+    }
+  }
+
+  public int size() {
+    return pending.size();
+  }
+}
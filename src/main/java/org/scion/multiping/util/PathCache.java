@@ -0,0 +1,200 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scion.multiping.util;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import org.scion.jpan.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for path lookups, keyed by destination ISD/AS and destination address.<br>
+ * Cached paths are served until shortly before the first of them expires. Some time before that, a
+ * lookup triggers a refresh in the background, so that callers usually never have to wait for the
+ * path service.
+ *
+ * <p>If a refresh does not extend the expiry time, e.g. because the path service still returns the
+ * same segments, there is no further refresh for that entry. It is served until it expires and then
+ * looked up again.
+ *
+ * <p>Empty results and paths without expiration time are not cached.
+ */
+public class PathCache {
+  private static final Logger LOG = LoggerFactory.getLogger(PathCache.class);
+  private static final long EXPIRY_MARGIN_MS = 60 * 1000L;
+  private static final long REFRESH_AHEAD_MS = 5 * 60 * 1000L;
+
+  private final BiFunction<Long, InetSocketAddress, List<Path>> lookup;
+  private final LongSupplier clockMillis;
+  private final long expiryMarginMs;
+  private final long refreshAheadMs;
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final ExecutorService refresher =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread t = new Thread(r, "path-cache-refresh");
+            t.setDaemon(true);
+            return t;
+          });
+
+  private final AtomicLong nHits = new AtomicLong();
+  private final AtomicLong nMisses = new AtomicLong();
+  private final AtomicLong nRefreshes = new AtomicLong();
+
+  public PathCache(BiFunction<Long, InetSocketAddress, List<Path>> lookup) {
+    this(lookup, System::currentTimeMillis, EXPIRY_MARGIN_MS, REFRESH_AHEAD_MS);
+  }
+
+  PathCache(
+      BiFunction<Long, InetSocketAddress, List<Path>> lookup,
+      LongSupplier clockMillis,
+      long expiryMarginMs,
+      long refreshAheadMs) {
+    this.lookup = lookup;
+    this.clockMillis = clockMillis;
+    this.expiryMarginMs = expiryMarginMs;
+    this.refreshAheadMs = refreshAheadMs;
+  }
+
+  private static class Key {
+    private final long isdAs;
+    private final InetSocketAddress address;
+
+    private Key(long isdAs, InetSocketAddress address) {
+      this.isdAs = isdAs;
+      this.address = address;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return isdAs == key.isdAs && Objects.equals(address, key.address);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(isdAs, address);
+    }
+  }
+
+  private static class Entry {
+    private final List<Path> paths;
+    private final long expiryMillis;
+    private final AtomicBoolean isRefreshing = new AtomicBoolean();
+
+    private Entry(List<Path> paths, long expiryMillis, boolean isRefreshing) {
+      this.paths = paths;
+      this.expiryMillis = expiryMillis;
+      this.isRefreshing.set(isRefreshing);
+    }
+  }
+
+  public List<Path> getPaths(long isdAs, InetSocketAddress destinationAddress) {
+    Key key = new Key(isdAs, destinationAddress);
+    Entry entry = entries.get(key);
+    long now = clockMillis.getAsLong();
+    if (entry != null && now < entry.expiryMillis - expiryMarginMs) {
+      nHits.incrementAndGet();
+      if (now >= entry.expiryMillis - refreshAheadMs
+          && entry.isRefreshing.compareAndSet(false, true)) {
+        refresher.execute(() -> refresh(key, entry));
+      }
+      // Return a copy, callers may reorder the list.
+      return new ArrayList<>(entry.paths);
+    }
+    nMisses.incrementAndGet();
+    return new ArrayList<>(load(key, null));
+  }
+
+  private void refresh(Key key, Entry entry) {
+    nRefreshes.incrementAndGet();
+    try {
+      load(key, entry);
+    } catch (RuntimeException e) {
+      LOG.warn("Path refresh failed: {}", e.getMessage());
+      entry.isRefreshing.set(false);
+    }
+  }
+
+  /**
+   * @param key key
+   * @param previous the entry that is refreshed, or null
+   * @return The paths.
+   */
+  private List<Path> load(Key key, Entry previous) {
+    List<Path> paths = lookup.apply(key.isdAs, key.address);
+    long expiryMillis = getExpiryMillis(paths);
+    if (expiryMillis > 0) {
+      // Refreshing again only makes sense if this refresh extended the expiry.
+      boolean isFinal = previous != null && expiryMillis <= previous.expiryMillis;
+      entries.put(key, new Entry(new ArrayList<>(paths), expiryMillis, isFinal));
+    } else {
+      entries.remove(key);
+    }
+    return paths;
+  }
+
+  /**
+   * @return The earliest expiration time of all paths in milliseconds since epoch, or 0 if any path
+   *     has no expiration time.
+   */
+  private static long getExpiryMillis(List<Path> paths) {
+    long expiryMillis = Long.MAX_VALUE;
+    for (Path path : paths) {
+      long expirySeconds = path.getMetadata().getExpiration();
+      if (expirySeconds <= 0) {
+        return 0;
+      }
+      expiryMillis = Math.min(expiryMillis, expirySeconds * 1000);
+    }
+    return paths.isEmpty() ? 0 : expiryMillis;
+  }
+
+  public long getHitCount() {
+    return nHits.get();
+  }
+
+  public long getMissCount() {
+    return nMisses.get();
+  }
+
+  public long getRefreshCount() {
+    return nRefreshes.get();
+  }
+
+  public void printStats() {
+    Util.println("Path Cache Stats:");
+    Util.println(" hits       = " + getHitCount());
+    Util.println(" misses     = " + getMissCount());
+    Util.println(" refreshes  = " + getRefreshCount());
+  }
+}
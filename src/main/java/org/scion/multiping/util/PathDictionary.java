@@ -0,0 +1,114 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.scion.jpan.Path;
+
+/**
+ * Assigns a stable ID to every distinct path, identified by its path string (e.g. "[2>6 19>9]") and
+ * hop count. IDs are assigned in order, starting with 0.<br>
+ * Path string and hop count are taken from the shared {@link PathInfo} cache, so they are only
+ * computed once per raw path. Paths that are refreshed get a new raw path but keep their ID.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class PathDictionary {
+  private static final String NO_PATH = "[]";
+  // Raw paths change whenever paths are refreshed. Limit the memory used for old raw paths.
+  private static final int MAX_PATH_INFOS = 100_000;
+
+  private final Map<PathInfo, Entry> byPathInfo = new IdentityHashMap<>();
+  private final Map<String, Entry> byPathString = new HashMap<>(); // key: hop count + path
+  private final List<Entry> entries = new ArrayList<>();
+
+  public static class Entry {
+    private final int id;
+    private final String path;
+    private final int hopCount;
+
+    private Entry(int id, String path, int hopCount) {
+      this.id = id;
+      this.path = path;
+      this.hopCount = hopCount;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public int getHopCount() {
+      return hopCount;
+    }
+  }
+
+  /**
+   * @param path path or null
+   * @return The dictionary entry of the path. A new entry is created if the path is not known yet.
+   */
+  public Entry get(Path path) {
+    if (path == null) {
+      return getOrAdd(NO_PATH, 0);
+    }
+    PathInfo info = PathInfo.get(path);
+    Entry e = byPathInfo.get(info);
+    if (e == null) {
+      e = getOrAdd(info.getPathString(), info.getHopCount());
+      if (byPathInfo.size() >= MAX_PATH_INFOS) {
+        byPathInfo.clear();
+      }
+      byPathInfo.put(info, e);
+    }
+    return e;
+  }
+
+  /**
+   * @param id path ID
+   * @return The entry with the given ID or null.
+   */
+  public Entry get(int id) {
+    return id >= 0 && id < entries.size() ? entries.get(id) : null;
+  }
+
+  /**
+   * Add a path with the next free ID. This is used when reading a dictionary.
+   *
+   * @param path path string
+   * @param hopCount hop count
+   * @return The new entry.
+   */
+  Entry add(String path, int hopCount) {
+    Entry e = new Entry(entries.size(), path, hopCount);
+    entries.add(e);
+    byPathString.put(hopCount + path, e);
+    return e;
+  }
+
+  private Entry getOrAdd(String path, int hopCount) {
+    Entry e = byPathString.get(hopCount + path);
+    return e != null ? e : add(path, hopCount);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathMetadata;
+import org.scion.jpan.ScionUtil;
+import org.scion.jpan.internal.header.PathRawParser;
+
+/**
+ * Information about a path that is derived from the path's metadata and raw path: hop count, path
+ * string, interfaces and the ISD/ASes along the path.<br>
+ * The information is computed once per distinct raw path and cached, see {@link #get(Path)}.
+ */
+public class PathInfo {
+  // Raw paths change whenever paths are refreshed. Limit the memory used for old raw paths.
+  private static final int MAX_ENTRIES = 100_000;
+  private static final Map<ByteBuffer, PathInfo> cache = new ConcurrentHashMap<>();
+  private static final AtomicLong nHits = new AtomicLong();
+  private static final AtomicLong nMisses = new AtomicLong();
+
+  private final int hopCount;
+  private final String pathString;
+  private final List<PathMetadata.PathInterface> interfaces;
+  private final long[] isdAsHops;
+
+  private PathInfo(Path path) {
+    this.hopCount = PathRawParser.create(path.getRawPath()).getHopCount();
+    this.pathString = ScionUtil.toStringPath(path.getMetadata());
+    this.interfaces =
+        Collections.unmodifiableList(new ArrayList<>(path.getMetadata().getInterfacesList()));
+    List<Long> hops = new ArrayList<>();
+    for (PathMetadata.PathInterface pif : interfaces) {
+      if (hops.isEmpty() || hops.get(hops.size() - 1) != pif.getIsdAs()) {
+        hops.add(pif.getIsdAs());
+      }
+    }
+    this.isdAsHops = hops.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  /**
+   * @param path path
+   * @return The (cached) information about the path.
+   */
+  public static PathInfo get(Path path) {
+    byte[] raw = path.getRawPath();
+    PathInfo info = cache.get(ByteBuffer.wrap(raw));
+    if (info != null) {
+      nHits.incrementAndGet();
+      return info;
+    }
+    nMisses.incrementAndGet();
+    info = new PathInfo(path);
+    if (cache.size() >= MAX_ENTRIES) {
+      cache.clear();
+    }
+    cache.put(ByteBuffer.wrap(raw.clone()), info);
+    return info;
+  }
+
+  public int getHopCount() {
+    return hopCount;
+  }
+
+  /**
+   * @return The path as formatted by {@link ScionUtil#toStringPath(PathMetadata)}.
+   */
+  public String getPathString() {
+    return pathString;
+  }
+
+  public List<PathMetadata.PathInterface> getInterfaces() {
+    return interfaces;
+  }
+
+  /**
+   * @return The ISD/ASes along the path, starting with the local ISD/AS. Empty for paths without
+   *     interfaces, e.g. in the local AS.
+   */
+  public long[] getIsdAsHops() {
+    return isdAsHops.clone();
+  }
+
+  public static long getHitCount() {
+    return nHits.get();
+  }
+
+  public static long getMissCount() {
+    return nMisses.get();
+  }
+
+  /**
+   * @return The fraction of lookups that were served from the cache.
+   */
+  public static double getHitRate() {
+    long hits = getHitCount();
+    long total = hits + getMissCount();
+    return total == 0 ? 0 : hits / (double) total;
+  }
+
+  public static void printStats() {
+    Util.println("Path Info Stats:");
+    Util.println(" hits       = " + getHitCount());
+    Util.println(" misses     = " + getMissCount());
+    Util.println(" hit rate   = " + Util.round(getHitRate() * 100, 1) + "%");
+  }
+}
@@ -0,0 +1,256 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.scion.jpan.ScionUtil;
+
+/**
+ * Latency histogram and loss counters per destination and path, accumulated over all rounds.<br>
+ * Paths are identified by their path string and hop count, so they keep their statistics when they
+ * are refreshed. The remote IP is the last one that replied along the path, it is not part of the
+ * identity because lost attempts have no remote IP.
+ *
+ * <p>The table can be written as CSV with one row per path: ISD/AS, remote IP, hop count, path,
+ * number of attempts, number of lost attempts, loss in percent, min/percentiles/max of the latency
+ * in milliseconds, and the number and maximum latency of late replies.<br>
+ * Late replies arrived after their attempt was declared lost. If the measurement was still running,
+ * the record holds the round trip time and the attempt is also included in the latency columns.
+ * Otherwise the attempt remains lost.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class PathStatsTable {
+  private static final String PARTIAL = ".partial";
+
+  private final double[] percentiles;
+  private final Map<Key, Entry> entries = new LinkedHashMap<>();
+
+  private static class Key {
+    private final long isdAs;
+    private final int hopCount;
+    private final String path;
+
+    private Key(long isdAs, int hopCount, String path) {
+      this.isdAs = isdAs;
+      this.hopCount = hopCount;
+      this.path = path;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return isdAs == key.isdAs && hopCount == key.hopCount && path.equals(key.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(isdAs, hopCount, path);
+    }
+  }
+
+  public static class Entry {
+    private final Key key;
+    private final LatencyHistogram latencyMs = new LatencyHistogram();
+    private String remoteIP;
+    private long nAttempts = 0;
+    private long nLost = 0;
+    private long nLate = 0;
+    private double lateMaxMs = -1;
+
+    private Entry(Key key) {
+      this.key = key;
+    }
+
+    public long getIsdAs() {
+      return key.isdAs;
+    }
+
+    /**
+     * @return The last known remote IP or null if there was never a reply.
+     */
+    public String getRemoteIP() {
+      return remoteIP;
+    }
+
+    private void setRemoteIP(String remoteIP) {
+      if (remoteIP != null) {
+        this.remoteIP = remoteIP;
+      }
+    }
+
+    public int getHopCount() {
+      return key.hopCount;
+    }
+
+    public String getPath() {
+      return key.path;
+    }
+
+    public long getAttemptCount() {
+      return nAttempts;
+    }
+
+    public long getLostCount() {
+      return nLost;
+    }
+
+    /**
+     * @return The percentage of attempts without reply.
+     */
+    public double getLossPercent() {
+      return nAttempts == 0 ? 0 : nLost * 100.0 / nAttempts;
+    }
+
+    public LatencyHistogram getLatencyMs() {
+      return latencyMs;
+    }
+
+    public long getLateCount() {
+      return nLate;
+    }
+
+    /**
+     * @return The maximum latency of late replies or -1 if there were no late replies.
+     */
+    public double getLateMaxMs() {
+      return lateMaxMs;
+    }
+  }
+
+  /**
+   * @param percentiles percentiles to report, see {@link Config#summaryPercentiles}
+   */
+  public PathStatsTable(double[] percentiles) {
+    this.percentiles = percentiles.clone();
+  }
+
+  /**
+   * Add all attempts of a finished measurement.
+   *
+   * @param rec record, must not have been released
+   */
+  public void add(Record rec) {
+    if (rec.getPath() == null || rec.getAttemptCount() == 0) {
+      return;
+    }
+    PathInfo info = PathInfo.get(rec.getPath());
+    Key key = new Key(rec.getIsdAs(), info.getHopCount(), info.getPathString());
+    Entry entry = entries.computeIfAbsent(key, Entry::new);
+    entry.setRemoteIP(rec.getRemoteIP());
+    for (int i = 0; i < rec.getAttemptCount(); i++) {
+      Record.AttemptState state = rec.getAttemptState(i);
+      if (state == null) {
+        continue;
+      }
+      entry.nAttempts++;
+      if (state == Record.AttemptState.SUCCESS) {
+        entry.latencyMs.add(rec.getAttemptMs(i));
+      } else {
+        entry.nLost++;
+      }
+    }
+  }
+
+  /**
+   * Add a reply that arrived after its attempt was declared lost.
+   *
+   * @param isdAs destination ISD/AS
+   * @param remoteIP remote IP of the reply
+   * @param info path of the request
+   * @param ms latency of the reply
+   */
+  public void addLate(long isdAs, String remoteIP, PathInfo info, double ms) {
+    Key key = new Key(isdAs, info.getHopCount(), info.getPathString());
+    Entry entry = entries.computeIfAbsent(key, Entry::new);
+    entry.setRemoteIP(remoteIP);
+    entry.nLate++;
+    entry.lateMaxMs = Math.max(entry.lateMaxMs, ms);
+  }
+
+  public Collection<Entry> getEntries() {
+    return entries.values();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public void write(Writer out) throws IOException {
+    StringBuilder sb = new StringBuilder("isdAs,remoteIP,hops,path,attempts,lost,loss%,min");
+    for (double p : percentiles) {
+      sb.append(',').append(Util.toPercentileLabel(p));
+    }
+    out.write(sb.append(",max,late,lateMax").append(System.lineSeparator()).toString());
+    for (Entry e : entries.values()) {
+      sb.setLength(0);
+      sb.append(ScionUtil.toStringIA(e.getIsdAs())).append(',');
+      sb.append(e.getRemoteIP() == null ? "" : e.getRemoteIP()).append(',');
+      sb.append(e.getHopCount()).append(',').append(e.getPath()).append(',');
+      sb.append(e.nAttempts).append(',').append(e.nLost).append(',');
+      sb.append(Util.round(e.getLossPercent(), 2));
+      appendMs(sb, e.latencyMs.getMin());
+      for (double p : percentiles) {
+        appendMs(sb, e.latencyMs.getPercentile(p));
+      }
+      appendMs(sb, e.latencyMs.getMax());
+      sb.append(',').append(e.nLate);
+      appendMs(sb, e.lateMaxMs);
+      out.write(sb.append(System.lineSeparator()).toString());
+    }
+  }
+
+  private static void appendMs(StringBuilder sb, double ms) {
+    // Empty column for paths without any reply.
+    sb.append(',');
+    if (ms >= 0) {
+      sb.append(Util.round(ms, 2));
+    }
+  }
+
+  /**
+   * Write the table to a file. The file is replaced atomically, so readers never see a partial
+   * table.
+   *
+   * @param file output file
+   */
+  public void write(Path file) {
+    Path partial = file.resolveSibling(file.getFileName() + PARTIAL);
+    try (Writer out = Files.newBufferedWriter(partial)) {
+      write(out);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    try {
+      Files.move(
+          partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
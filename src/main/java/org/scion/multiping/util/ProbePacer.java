@@ -0,0 +1,125 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scion.multiping.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that limits the rate at which probes are sent.<br>
+ * Up to "burst" probes can be sent back-to-back, after that probes are delayed such that the
+ * average rate does not exceed "packetsPerSecond". A rate of 0 disables pacing.
+ *
+ * <p>The pacer also keeps track of the achieved send rate and of the time that probes had to wait
+ * before being sent.
+ */
+public class ProbePacer {
+  private final double tokensPerNano;
+  private final int burst;
+  private double tokens;
+  private long lastRefill;
+
+  private long nSent = 0;
+  private long firstSend;
+  private long lastSend;
+  private long totalDelayNanos = 0;
+  private long maxDelayNanos = 0;
+
+  public ProbePacer(double packetsPerSecond, int burst) {
+    if (packetsPerSecond < 0 || burst < 1) {
+      throw new IllegalArgumentException(
+          "Invalid rate or burst: " + packetsPerSecond + "/" + burst);
+    }
+    this.tokensPerNano = packetsPerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.burst = burst;
+    this.tokens = burst;
+    this.lastRefill = System.nanoTime();
+  }
+
+  public static ProbePacer create(Config config) {
+    return new ProbePacer(config.probeRatePps, config.probeBurst);
+  }
+
+  public static ProbePacer unlimited() {
+    return new ProbePacer(0, 1);
+  }
+
+  /** Wait until the next probe can be sent. */
+  public void acquire() {
+    long now = System.nanoTime();
+    long delayNanos = 0;
+    synchronized (this) {
+      if (nSent == 0) {
+        firstSend = now;
+      }
+      nSent++;
+      if (tokensPerNano > 0) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        // Reserve a token. A negative balance is paid off by waiting.
+        tokens -= 1;
+        if (tokens < 0) {
+          delayNanos = (long) Math.ceil(-tokens / tokensPerNano);
+        }
+      }
+      totalDelayNanos += delayNanos;
+      maxDelayNanos = Math.max(maxDelayNanos, delayNanos);
+      lastSend = Math.max(lastSend, now + delayNanos);
+    }
+    if (delayNanos > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(delayNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  public synchronized long getSentCount() {
+    return nSent;
+  }
+
+  /**
+   * @return The average send rate in packets per second between the first and the last probe.
+   */
+  public synchronized double getAchievedRate() {
+    if (nSent < 2 || lastSend == firstSend) {
+      return 0;
+    }
+    return (nSent - 1) / ((lastSend - firstSend) / (double) TimeUnit.SECONDS.toNanos(1));
+  }
+
+  /**
+   * @return The average time in milliseconds that probes waited before being sent.
+   */
+  public synchronized double getAvgDelayMs() {
+    return nSent == 0 ? 0 : totalDelayNanos / (double) nSent / 1_000_000;
+  }
+
+  /**
+   * @return The maximum time in milliseconds that a probe waited before being sent.
+   */
+  public synchronized double getMaxDelayMs() {
+    return maxDelayNanos / (double) 1_000_000;
+  }
+
+  public void printStats() {
+    Util.println("Send Stats:");
+    Util.println(" sent       = " + getSentCount());
+    Util.println(" rate [pps] = " + Util.round(getAchievedRate(), 1));
+    Util.println(" avg delay  = " + Util.round(getAvgDelayMs(), 2) + "ms");
+    Util.println(" max delay  = " + Util.round(getMaxDelayMs(), 2) + "ms");
+  }
+}
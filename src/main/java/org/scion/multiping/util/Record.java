@@ -16,15 +16,18 @@ package org.scion.multiping.util;
 
 import static org.scion.multiping.util.Util.round;
 
-import java.io.FileWriter;
-import java.io.IOException;
+import java.net.InetAddress;
 import java.time.Instant;
-import java.util.ArrayList;
 import org.scion.jpan.Path;
 import org.scion.jpan.ScionUtil;
 import org.scion.jpan.Scmp;
-import org.scion.jpan.internal.header.PathRawParser;
 
+/**
+ * Result of the measurements along a single path in one round.
+ *
+ * <p>Attempts are stored in primitive arrays and records can be reused via a {@link RecordPool}, so
+ * that repeated measurements do not allocate new records.
+ */
 public class Record {
   /**
    * IMPORTANT: States are ordered by precedence! Lower-ordinal states override higher-ordinal
@@ -39,93 +42,206 @@ public class Record {
     SUCCESS,
   }
 
-  private final long isdAs;
-  private final ArrayList<Attempt> attempts = new ArrayList<>();
-  private final Instant time;
-  private final Path path;
-  private String remoteIP;
+  public enum AttemptState {
+    SUCCESS,
+    TIMEOUT,
+    ERROR_SEQID,
+    ERROR_PATH;
+
+    private static final AttemptState[] VALUES = values();
+
+    static AttemptState of(int ordinal) {
+      return VALUES[ordinal];
+    }
+  }
+
+  private static final byte NOT_SET = -1;
+
+  private final RecordPool pool;
+  private long isdAs;
+  private byte[] attemptStates; // ordinal of AttemptState or NOT_SET
+  private int[] attemptMicros;
+  private int attemptRepeatCount;
+  private long epochNanos;
+  private Path path;
+  private InetAddress remoteAddress;
   private String icmp;
   private boolean isEcho;
-  private final int attemptRepeatCount;
-  private State state = State.SUCCESS;
+  private State state;
+  private boolean isFinished;
+  private int generation = 0;
 
   public Record(Instant time, Path request, long isdAs, int attemptRepeatCount) {
+    this(null);
+    init(Util.toEpochNanos(time), request, isdAs, attemptRepeatCount);
+  }
+
+  Record(RecordPool pool) {
+    this.pool = pool;
+    this.attemptStates = new byte[0];
+    this.attemptMicros = new int[0];
+  }
+
+  void init(long epochNanos, Path path, long isdAs, int attemptRepeatCount) {
+    this.epochNanos = epochNanos;
+    this.path = path;
     this.isdAs = isdAs;
-    this.time = time;
-    this.path = request;
     this.attemptRepeatCount = attemptRepeatCount;
+    if (attemptStates.length < attemptRepeatCount) {
+      attemptStates = new byte[attemptRepeatCount];
+      attemptMicros = new int[attemptRepeatCount];
+    }
+    for (int i = 0; i < attemptRepeatCount; i++) {
+      attemptStates[i] = NOT_SET;
+      attemptMicros[i] = 0;
+    }
+    remoteAddress = null;
+    icmp = null;
+    isEcho = false;
+    state = State.SUCCESS;
+    isFinished = false;
+    generation++;
   }
 
   public static Record startMeasurement(Path path, int attemptRepeatCount) {
     return new Record(Instant.now(), path, path.getRemoteIsdAs(), attemptRepeatCount);
   }
 
-  public static Record createNoPathRecord(long isdAs, FileWriter fileWriter) {
+  public static Record createNoPathRecord(long isdAs, RecordWriter writer) {
     Record rec = new Record(Instant.now(), null, isdAs, 0);
     rec.setState(State.NO_PATH);
-    rec.finishMeasurement(fileWriter);
+    rec.finishMeasurement(writer);
     return rec;
   }
 
-  public static Record createErrorRecord(long isdAs, FileWriter fileWriter) {
+  public static Record createErrorRecord(long isdAs, RecordWriter writer) {
     Record rec = new Record(Instant.now(), null, isdAs, 0);
     rec.setState(State.ERROR);
-    rec.finishMeasurement(fileWriter);
+    rec.finishMeasurement(writer);
     return rec;
   }
 
-  public Attempt registerAttempt(Scmp.TimedMessage msg) {
-    Attempt a = new Attempt(msg);
-    if (remoteIP == null) {
-      remoteIP = msg.getPath().getRemoteAddress().getHostAddress();
+  public boolean registerAttempt(Scmp.TimedMessage msg) {
+    return registerAttempt(nextAttemptIndex(), msg);
+  }
+
+  /**
+   * Register the result of an attempt.
+   *
+   * @param index the attempt number
+   * @param msg the response
+   * @return false if a result for this attempt was already registered.
+   */
+  public boolean registerAttempt(int index, Scmp.TimedMessage msg) {
+    if (attemptStates[index] != NOT_SET) {
+      return false;
+    }
+    if (msg.isTimedOut()) {
+      attemptStates[index] = (byte) AttemptState.TIMEOUT.ordinal();
+    } else {
+      // Round to microseconds, this is the resolution of the output.
+      attemptMicros[index] = (int) ((msg.getNanoSeconds() + 500) / 1000);
+      attemptStates[index] = (byte) AttemptState.SUCCESS.ordinal();
+    }
+    if (remoteAddress == null) {
+      remoteAddress = msg.getPath().getRemoteAddress();
+    }
+    return true;
+  }
+
+  /**
+   * Register a reply that arrived after its attempt has been declared lost. The TIMEOUT is replaced
+   * by the round trip time of the reply.
+   *
+   * @param index the attempt number
+   * @param msg the response
+   * @return false if the attempt is not a TIMEOUT.
+   */
+  public boolean registerLateReply(int index, Scmp.TimedMessage msg) {
+    if (attemptStates[index] != AttemptState.TIMEOUT.ordinal() || msg.isTimedOut()) {
+      return false;
+    }
+    attemptMicros[index] = (int) ((msg.getNanoSeconds() + 500) / 1000);
+    attemptStates[index] = (byte) AttemptState.SUCCESS.ordinal();
+    if (remoteAddress == null) {
+      remoteAddress = msg.getPath().getRemoteAddress();
     }
-    attempts.add(a);
-    return a;
+    if (state == State.ERROR && !hasFailedAttempts()) {
+      state = State.SUCCESS;
+    }
+    return true;
   }
 
-  public Attempt registerAttempt(Attempt.State attemptState) {
-    Attempt a = new Attempt(attemptState);
-    attempts.add(a);
-    if (attemptState != Attempt.State.SUCCESS && state == State.SUCCESS) {
+  private boolean hasFailedAttempts() {
+    for (int i = 0; i < attemptRepeatCount; i++) {
+      if (attemptStates[i] != NOT_SET && attemptStates[i] != AttemptState.SUCCESS.ordinal()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean registerAttempt(AttemptState attemptState) {
+    return registerAttempt(nextAttemptIndex(), attemptState);
+  }
+
+  public boolean registerAttempt(int index, AttemptState attemptState) {
+    if (attemptStates[index] != NOT_SET) {
+      return false;
+    }
+    attemptStates[index] = (byte) attemptState.ordinal();
+    if (attemptState != AttemptState.SUCCESS && state == State.SUCCESS) {
       state = State.ERROR;
     }
-    return a;
+    return true;
   }
 
-  public void finishMeasurement(FileWriter fileWriter) {
-    summarizeState();
-    int nHops = path == null ? 0 : PathRawParser.create(path.getRawPath()).getHopCount();
-    StringBuilder out = new StringBuilder(ScionUtil.toStringIA(isdAs));
-    out.append(",").append(remoteIP == null ? "" : remoteIP);
-    out.append(",").append(time);
-    out.append(",").append(isEcho ? "ECHO" : "TRACE");
-    out.append(",").append(state.name());
-    out.append(",").append(nHops);
-    out.append(",").append(path == null ? "[]" : ScionUtil.toStringPath(path.getMetadata()));
-    for (Attempt a : attempts) {
-      if (a.state == Attempt.State.SUCCESS) {
-        out.append(",").append(round(a.pingMs, 2));
-      } else {
-        out.append(",").append(a.state.name());
+  private int nextAttemptIndex() {
+    for (int i = 0; i < attemptRepeatCount; i++) {
+      if (attemptStates[i] == NOT_SET) {
+        return i;
       }
     }
-    out.append(System.lineSeparator());
-    try {
-      fileWriter.append(out.toString());
-      fileWriter.flush();
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
+    throw new IllegalStateException("Too many attempts: " + attemptRepeatCount);
+  }
+
+  /**
+   * Finish the measurement and pass the record to the writer. The record must not be modified
+   * afterwards because the writer may process it asynchronously.
+   *
+   * @param writer output
+   */
+  public void finishMeasurement(RecordWriter writer) {
+    isFinished = true;
+    summarizeState();
+    writer.write(this);
+  }
+
+  /**
+   * Return the record to its pool, if any. This is called by the writer after the record has been
+   * written, or by the measurement if the record is discarded without being written.
+   */
+  public void release() {
+    // Late replies must not be registered while the record is in the pool.
+    isFinished = true;
+    if (pool != null) {
+      pool.release(this);
     }
   }
 
   private State summarizeState() {
-    for (Attempt a : attempts) {
-      if (a.state != Attempt.State.SUCCESS) {
+    int nAttempts = 0;
+    for (int i = 0; i < attemptRepeatCount; i++) {
+      if (attemptStates[i] == NOT_SET) {
+        continue;
+      }
+      if (attemptStates[i] != AttemptState.SUCCESS.ordinal()) {
         this.state = State.ERROR;
         return this.state;
       }
+      nAttempts++;
     }
-    if (attempts.size() < attemptRepeatCount) {
+    if (nAttempts < attemptRepeatCount) {
       this.state = State.ERROR;
       return State.ERROR;
     }
@@ -136,10 +252,43 @@ public class Record {
     this.state = state;
   }
 
+  public State getState() {
+    return state;
+  }
+
   public long getIsdAs() {
     return isdAs;
   }
 
+  public Instant getTime() {
+    return Util.toInstant(epochNanos);
+  }
+
+  public long getEpochNanos() {
+    return epochNanos;
+  }
+
+  public int getAttemptCount() {
+    return attemptRepeatCount;
+  }
+
+  /**
+   * @param index attempt number
+   * @return The state of the attempt or null if the attempt has no result.
+   */
+  public AttemptState getAttemptState(int index) {
+    byte ordinal = attemptStates[index];
+    return ordinal == NOT_SET ? null : AttemptState.of(ordinal);
+  }
+
+  public int getAttemptMicros(int index) {
+    return attemptMicros[index];
+  }
+
+  public double getAttemptMs(int index) {
+    return attemptMicros[index] / (double) 1_000;
+  }
+
   public void setICMP(String icmp) {
     this.icmp = icmp;
   }
@@ -148,8 +297,12 @@ public class Record {
     return path;
   }
 
+  public InetAddress getRemoteAddress() {
+    return remoteAddress;
+  }
+
   public String getRemoteIP() {
-    return remoteIP;
+    return remoteAddress == null ? null : remoteAddress.getHostAddress();
   }
 
   public void isEcho(boolean b) {
@@ -160,52 +313,30 @@ public class Record {
     return isEcho;
   }
 
-  @Override
-  public String toString() {
-    StringBuilder out = new StringBuilder(ScionUtil.toStringIA(isdAs));
-    out.append("   ").append(ScionUtil.toStringPath(path.getMetadata()));
-    out.append("  ").append(remoteIP);
-    for (Attempt a : attempts) {
-      out.append(a);
-    }
-    return out + "  ICMP=" + icmp;
+  /**
+   * @return true if the measurement has been finished and written.
+   */
+  public boolean isFinished() {
+    return isFinished;
   }
 
-  public static class Attempt {
-    public enum State {
-      SUCCESS,
-      TIMEOUT,
-      ERROR_SEQID,
-      ERROR_PATH,
-    }
-
-    private double pingMs;
-    private final State state;
-
-    Attempt(State state) {
-      this.state = state;
-    }
+  /**
+   * @return A number that changes whenever the record is reused for a new measurement.
+   */
+  public int getGeneration() {
+    return generation;
+  }
 
-    Attempt(Scmp.TimedMessage msg) {
-      if (msg.isTimedOut()) {
-        state = State.TIMEOUT;
-      } else {
-        pingMs = msg.getNanoSeconds() / (double) 1_000_000;
-        state = State.SUCCESS;
+  @Override
+  public String toString() {
+    StringBuilder out = new StringBuilder(ScionUtil.toStringIA(isdAs));
+    out.append("   ").append(PathInfo.get(path).getPathString());
+    out.append("  ").append(getRemoteIP());
+    for (int i = 0; i < attemptRepeatCount; i++) {
+      if (attemptStates[i] != NOT_SET) {
+        out.append("  time=").append(round(getAttemptMs(i), 2)).append("ms");
       }
     }
-
-    public double getPingMs() {
-      return pingMs;
-    }
-
-    public State getState() {
-      return state;
-    }
-
-    @Override
-    public String toString() {
-      return "  time=" + round(pingMs, 2) + "ms";
-    }
+    return out + "  ICMP=" + icmp;
   }
 }
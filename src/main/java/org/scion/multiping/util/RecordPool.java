@@ -0,0 +1,59 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.scion.jpan.Path;
+
+/**
+ * Pool of {@link Record} instances.<br>
+ * Records are taken from the pool with {@link #startMeasurement(Path, int)} and returned by the
+ * writer with {@link Record#release()} once they have been written. Records may be released on a
+ * different thread than the one that uses them.
+ *
+ * <p>If the pool is empty, a new record is created. If the pool is full, released records are
+ * dropped.
+ */
+public class RecordPool {
+  private final BlockingQueue<Record> free;
+  private final AtomicLong nCreated = new AtomicLong();
+
+  public RecordPool(int capacity) {
+    this.free = new ArrayBlockingQueue<>(capacity);
+  }
+
+  public Record startMeasurement(Path path, int attemptRepeatCount) {
+    Record rec = free.poll();
+    if (rec == null) {
+      rec = new Record(this);
+      nCreated.incrementAndGet();
+    }
+    rec.init(Util.epochNanos(), path, path.getRemoteIsdAs(), attemptRepeatCount);
+    return rec;
+  }
+
+  void release(Record rec) {
+    free.offer(rec);
+  }
+
+  public long getCreatedCount() {
+    return nCreated.get();
+  }
+
+  public int getFreeCount() {
+    return free.size();
+  }
+}
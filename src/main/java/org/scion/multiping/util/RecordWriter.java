@@ -0,0 +1,74 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+
+/** Output for measurement records. */
+public interface RecordWriter extends AutoCloseable {
+
+  /**
+   * Create a writer for the given output format.
+   *
+   * @param out output stream
+   * @param format {@link Config#OUTPUT_CSV} or {@link Config#OUTPUT_BINARY}
+   * @return the writer
+   */
+  static RecordWriter create(OutputStream out, String format) {
+    switch (format) {
+      case Config.OUTPUT_CSV:
+        return new CsvRecordWriter(new OutputStreamWriter(out));
+      case Config.OUTPUT_BINARY:
+        return new BinaryRecordWriter(out);
+      default:
+        throw new IllegalArgumentException("Unknown output format: " + format);
+    }
+  }
+
+  /**
+   * Create a writer for the output file of the configuration. The output is written to rolling
+   * segments if rotation or compression is configured.
+   *
+   * @param config configuration
+   * @return the writer
+   * @throws IOException if the file cannot be created
+   */
+  static RecordWriter create(Config config) throws IOException {
+    if (RollingRecordWriter.isEnabled(config)) {
+      return new RollingRecordWriter(config);
+    }
+    return create(new FileOutputStream(config.outputFile), config.outputFormat);
+  }
+
+  /**
+   * Write a record. Writers that produce output call {@link Record#release()} once they no longer
+   * need the record.
+   *
+   * @param rec record
+   */
+  void write(Record rec);
+
+  /** Called after each measurement round. */
+  default void endRound() {}
+
+  /** Write all records that have been passed to {@link #write(Record)} so far. */
+  void flush();
+
+  /** Flush and close the writer. Calling close() more than once has no effect. */
+  @Override
+  void close();
+}
@@ -0,0 +1,195 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.scion.jpan.Path;
+import org.scion.jpan.ScionUtil;
+import org.scion.jpan.Scmp;
+
+/**
+ * Counts the requests that a responder receives, per source ISD/AS and per path.<br>
+ * Updates do not lock (except when a new source or path is seen for the first time), so they can be
+ * called for every packet by the responder thread. Paths are identified by their raw path, they are
+ * only formatted when a report is printed.
+ */
+public class ResponderStats {
+  // Limit the memory used for paths, e.g. when paths are refreshed often.
+  private static final int MAX_PATHS = 10_000;
+
+  private final Counter nRequests = new Counter();
+  private final Counter nErrors = new Counter();
+  private final Counter nOtherPaths = new Counter();
+  private final Map<Long, Counter> bySource = new ConcurrentHashMap<>();
+  private final Map<ByteBuffer, PathCounter> byPath = new ConcurrentHashMap<>();
+
+  // State of the periodic report
+  private long lastReportNanos = System.nanoTime();
+  private long lastReportRequests = 0;
+
+  private static class PathCounter {
+    private final Path path;
+    private final Counter count = new Counter();
+
+    private PathCounter(Path path) {
+      this.path = path;
+    }
+  }
+
+  /**
+   * Count an echo request.
+   *
+   * @param msg request
+   * @return always true, i.e. the request should be answered
+   */
+  public boolean onRequest(Scmp.EchoMessage msg) {
+    nRequests.inc();
+    Path path = msg.getPath();
+    long isdAs = path.getRemoteIsdAs();
+    Counter source = bySource.get(isdAs);
+    if (source == null) {
+      source = bySource.computeIfAbsent(isdAs, k -> new Counter());
+    }
+    source.inc();
+
+    byte[] raw = path.getRawPath();
+    PathCounter pc = byPath.get(ByteBuffer.wrap(raw));
+    if (pc == null) {
+      if (byPath.size() >= MAX_PATHS) {
+        nOtherPaths.inc();
+        return true;
+      }
+      pc = byPath.computeIfAbsent(ByteBuffer.wrap(raw.clone()), k -> new PathCounter(path));
+    }
+    pc.count.inc();
+    return true;
+  }
+
+  public void onError(Scmp.Message msg) {
+    nErrors.inc();
+  }
+
+  public long getRequestCount() {
+    return nRequests.get();
+  }
+
+  public long getErrorCount() {
+    return nErrors.get();
+  }
+
+  public int getSourceCount() {
+    return bySource.size();
+  }
+
+  public int getPathCount() {
+    return byPath.size();
+  }
+
+  /**
+   * @param isdAs source ISD/AS
+   * @return Number of requests from the ISD/AS.
+   */
+  public long getRequestCount(long isdAs) {
+    Counter c = bySource.get(isdAs);
+    return c == null ? 0 : c.get();
+  }
+
+  /**
+   * Add the counts of another instance to this instance.
+   *
+   * @param other statistics, e.g. of another responder
+   */
+  public void add(ResponderStats other) {
+    nRequests.add(other.getRequestCount());
+    nErrors.add(other.getErrorCount());
+    nOtherPaths.add(other.nOtherPaths.get());
+    for (Map.Entry<Long, Counter> e : other.bySource.entrySet()) {
+      bySource.computeIfAbsent(e.getKey(), k -> new Counter()).add(e.getValue().get());
+    }
+    for (Map.Entry<ByteBuffer, PathCounter> e : other.byPath.entrySet()) {
+      long count = e.getValue().count.get();
+      PathCounter pc = byPath.get(e.getKey());
+      if (pc == null && byPath.size() >= MAX_PATHS) {
+        nOtherPaths.add(count);
+        continue;
+      }
+      if (pc == null) {
+        // Keys are never modified, so they can be shared.
+        pc = byPath.computeIfAbsent(e.getKey(), k -> new PathCounter(e.getValue().path));
+      }
+      pc.count.add(count);
+    }
+  }
+
+  /** Reset all counts. The request rate of the next summary line is not affected. */
+  public void clear() {
+    nRequests.reset();
+    nErrors.reset();
+    nOtherPaths.reset();
+    bySource.clear();
+    byPath.clear();
+  }
+
+  /**
+   * @return A one-line summary with the request rate since the previous call.
+   */
+  public synchronized String getSummaryLine() {
+    long now = System.nanoTime();
+    long requests = getRequestCount();
+    double seconds = (now - lastReportNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    double rate = seconds > 0 ? (requests - lastReportRequests) / seconds : 0;
+    lastReportNanos = now;
+    lastReportRequests = requests;
+    return "requests="
+        + requests
+        + "  rate="
+        + Util.round(rate, 1)
+        + "/s  errors="
+        + getErrorCount()
+        + "  sources="
+        + getSourceCount()
+        + "  paths="
+        + getPathCount();
+  }
+
+  /** Print the number of requests per source ISD/AS and per path, most requests first. */
+  public void printDetails() {
+    Util.println("Responder Stats:");
+    Util.println(" requests   = " + getRequestCount());
+    Util.println(" errors     = " + getErrorCount());
+    Util.println("Requests per source:");
+    List<Map.Entry<Long, Counter>> sources = new ArrayList<>(bySource.entrySet());
+    sources.sort(Comparator.comparingLong(e -> -e.getValue().get()));
+    for (Map.Entry<Long, Counter> e : sources) {
+      Util.println(" " + ScionUtil.toStringIA(e.getKey()) + "  " + e.getValue());
+    }
+    Util.println("Requests per path:");
+    List<PathCounter> paths = new ArrayList<>(byPath.values());
+    paths.sort(Comparator.comparingLong(pc -> -pc.count.get()));
+    for (PathCounter pc : paths) {
+      String ia = ScionUtil.toStringIA(pc.path.getRemoteIsdAs());
+      String p = ScionUtil.toStringPath(pc.path.getMetadata());
+      Util.println(" " + ia + "  " + p + "  " + pc.count);
+    }
+    if (nOtherPaths.get() > 0) {
+      Util.println(" other paths  " + nOtherPaths);
+    }
+  }
+}
@@ -17,7 +17,6 @@ package org.scion.multiping.util;
 import org.scion.jpan.Path;
 import org.scion.jpan.ScionUtil;
 import org.scion.jpan.Scmp;
-import org.scion.jpan.internal.header.PathRawParser;
 
 public class Result {
   public enum State {
@@ -61,7 +60,7 @@ public class Result {
     }
     this.nPaths = nPaths;
     this.path = request;
-    nHops = request != null ? PathRawParser.create(request.getRawPath()).getHopCount() : -1;
+    nHops = request != null ? PathInfo.get(request).getHopCount() : -1;
     remoteIP = msg.getPath().getRemoteAddress().getHostAddress();
     if (msg.isTimedOut()) {
       state = State.TIMEOUT;
@@ -102,7 +101,7 @@ public class Result {
   @Override
   public String toString() {
     String out = ScionUtil.toStringIA(isdAs) + " " + name;
-    out += "   " + (path != null ? ScionUtil.toStringPath(path.getMetadata()) : "N/A");
+    out += "   " + (path != null ? PathInfo.get(path).getPathString() : "N/A");
     out += "  " + remoteIP + "  nPaths=" + nPaths + "  nHops=" + nHops;
     return out + "  time=" + Util.round(pingMs, 2) + "ms" + "  ICMP=" + icmp;
   }
@@ -17,35 +17,41 @@ package org.scion.multiping.util;
 import static org.scion.multiping.util.Util.println;
 import static org.scion.multiping.util.Util.round;
 
-import java.util.*;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.function.ToDoubleFunction;
-import java.util.stream.Collectors;
 import org.scion.jpan.ScionUtil;
 import org.scion.jpan.Scmp;
-import org.scion.jpan.internal.header.PathRawParser;
 
+/**
+ * Summary of all results of a run.<br>
+ * Results are not stored. Only the results with maximum ping, hop count and path count are kept,
+ * all other statistics are computed on the fly with constant memory.
+ *
+ * <p>This class is thread-safe. Counters and sets are lock-free or striped, only results and maxima
+ * are synchronized.
+ */
 public class ResultSummary {
 
-  private final List<Result> results = new ArrayList<>();
-  private int nIsdAsTried = 0;
-  private int nAsSuccess = 0;
-  private int nAsError = 0;
-  private int nAsTimeout = 0;
-  private int nAsNoPathFound = 0;
-  private final Set<Long> uniqueASes = new HashSet<>();
-  private final Set<Long> uniqueSuccess = new HashSet<>();
-  private final Set<Long> uniqueError = new HashSet<>();
-  private final Set<Long> uniqueTimeout = new HashSet<>();
-  private final Set<Long> uniqueNoPath = new HashSet<>();
-
-  private int nPathTried = 0;
-  private int nPathSuccess = 0;
-  private int nPathTimeout = 0;
-
-  private int nSeenButNotListed = 0;
-  private final List<String> seenButNotListed = new ArrayList<>();
+  private final StreamingStats pingStats = new StreamingStats();
+  private final StreamingStats hopStats = new StreamingStats();
+  private final StreamingStats pathStats = new StreamingStats();
+  private Result maxPing;
+  private Result maxHops;
+  private Result maxPaths;
+  private final Counter nIsdAsTried = new Counter();
+  private final Counter nAsSuccess = new Counter();
+  private final Counter nAsError = new Counter();
+  private final Counter nAsTimeout = new Counter();
+  private final Counter nAsNoPathFound = new Counter();
+  private final ConcurrentLongSet uniqueASes = new ConcurrentLongSet();
+  private final ConcurrentLongSet uniqueSuccess = new ConcurrentLongSet();
+  private final ConcurrentLongSet uniqueError = new ConcurrentLongSet();
+  private final ConcurrentLongSet uniqueTimeout = new ConcurrentLongSet();
+  private final ConcurrentLongSet uniqueNoPath = new ConcurrentLongSet();
+
+  private final Counter nPathTried = new Counter();
+  private final Counter nPathSuccess = new Counter();
+  private final Counter nPathTimeout = new Counter();
+
+  private final Counter nSeenButNotListed = new Counter();
 
   private long totalMaxHopsIsdAs;
   private int totalMaxHopsN;
@@ -55,79 +61,107 @@ public class ResultSummary {
   private long totalMaxPathsIsdAs = 0;
 
   public void incIsdAsTried(long isdAs) {
-    nIsdAsTried++;
+    nIsdAsTried.inc();
     uniqueASes.add(ScionUtil.extractAs(isdAs));
   }
 
   public void incAsSuccess(long isdAs) {
-    nAsSuccess++;
+    nAsSuccess.inc();
     uniqueSuccess.add(isdAs);
   }
 
   public void incAsError(long isdAs) {
-    nAsError++;
+    nAsError.inc();
     uniqueError.add(isdAs);
   }
 
   public void incAsTimeout(long isdAs) {
-    nAsTimeout++;
+    nAsTimeout.inc();
     uniqueTimeout.add(isdAs);
   }
 
   public void incAsNoPathFound(long isdAs) {
-    nAsNoPathFound++;
+    nAsNoPathFound.inc();
     uniqueNoPath.add(isdAs);
   }
 
   public void incPathTried() {
-    nPathTried++;
+    nPathTried.inc();
   }
 
   public void incPathSuccess() {
-    nPathSuccess++;
+    nPathSuccess.inc();
   }
 
   public void incPathTimeout() {
-    nPathTimeout++;
+    nPathTimeout.inc();
   }
 
   public void incSeenButNotListed() {
-    nSeenButNotListed++;
+    nSeenButNotListed.inc();
   }
 
-  public void add(Result r) {
-    results.add(r);
+  public synchronized void add(Result r) {
+    if (r.isSuccess()) {
+      pingStats.add(r.getPingMs());
+      if (maxPing == null || r.getPingMs() > maxPing.getPingMs()) {
+        maxPing = r;
+      }
+    }
+    if (r.getHopCount() > 0) {
+      hopStats.add(r.getHopCount());
+      if (maxHops == null || r.getHopCount() > maxHops.getHopCount()) {
+        maxHops = r;
+      }
+    }
+    if (r.getPathCount() > 0) {
+      pathStats.add(r.getPathCount());
+      if (maxPaths == null || r.getPathCount() > maxPaths.getPathCount()) {
+        maxPaths = r;
+      }
+    }
   }
 
-  public Result getMaxPaths() {
-    return max(r -> r.getPathCount() > 0, Comparator.comparingInt(Result::getPathCount));
+  public synchronized Result getMaxPaths() {
+    return orDummy(maxPaths);
+  }
+
+  public StreamingStats getPingStats() {
+    return pingStats;
+  }
+
+  public StreamingStats getHopStats() {
+    return hopStats;
+  }
+
+  public StreamingStats getPathStats() {
+    return pathStats;
   }
 
   public int getAsTimeouts() {
-    return nAsTimeout;
+    return (int) nAsTimeout.get();
   }
 
   public int getAsErrors() {
-    return nAsError;
+    return (int) nAsError.get();
   }
 
   public int getPathTimeouts() {
-    return nPathTimeout;
+    return (int) nPathTimeout.get();
   }
 
-  public void prettyPrint(Config config) {
-    // max:
-    Result maxPing = max(Result::isSuccess, (o1, o2) -> (int) (o1.getPingMs() - o2.getPingMs()));
-    Result maxHops = max(r -> r.getHopCount() > 0, Comparator.comparingInt(Result::getHopCount));
-    Result maxPaths = max(r -> r.getPathCount() > 0, Comparator.comparingInt(Result::getPathCount));
+  public int getPathTried() {
+    return (int) nPathTried.get();
+  }
 
-    // avg/median:
-    double avgPing = avg(Result::isSuccess, Result::getPingMs);
-    double avgHops = avg(r -> r.getHopCount() > 0, Result::getHopCount);
-    double avgPaths = avg(r -> r.getPathCount() > 0, Result::getPathCount);
-    double medianPing = median(Result::isSuccess, Result::getPingMs);
-    double medianHops = median(r -> r.getHopCount() > 0, Result::getHopCount);
-    double medianPaths = median(r -> r.getPathCount() > 0, Result::getPathCount);
+  public int getUniqueAsCount() {
+    return uniqueASes.size();
+  }
+
+  public synchronized void prettyPrint(Config config) {
+    Result maxPing = orDummy(this.maxPing);
+    Result maxHops = orDummy(this.maxHops);
+    Result maxPaths = orDummy(this.maxPaths);
 
     println("");
     println("Max hops            =\t " + maxHops.getHopCount() + "\t : " + maxHops);
@@ -141,20 +175,22 @@ public class ResultSummary {
     println("Total max ping [ms] =\t " + round(totalMaxPingMs, 2) + "\t : " + tMaxPingIA);
     println("Total max paths     =\t " + totalMaxPathsN + "\t : " + tMaxPathsIA);
 
-    // Median:
-
-    println("Median hops         =\t " + (int) medianHops);
-    println("Median ping [ms]    =\t " + round(medianPing, 2));
-    println("Median paths        =\t " + (int) medianPaths);
+    for (double percentile : config.summaryPercentiles) {
+      String p = Util.toPercentileLabel(percentile);
+      println(pad(p + " hops") + "=\t " + (int) round(hopStats.getPercentile(percentile), 0));
+      println(pad(p + " ping [ms]") + "=\t " + round(pingStats.getPercentile(percentile), 2));
+      println(pad(p + " paths") + "=\t " + (int) round(pathStats.getPercentile(percentile), 0));
+    }
 
-    println("Avg hops            =\t " + round(avgHops, 1));
-    println("Avg ping [ms]       =\t " + round(avgPing, 2));
-    println("Avg paths           =\t " + (int) round(avgPaths, 0));
+    println("Avg hops            =\t " + round(hopStats.getMean(), 1));
+    println("Avg ping [ms]       =\t " + round(pingStats.getMean(), 2));
+    println("Avg paths           =\t " + (int) round(pathStats.getMean(), 0));
+    println("Stddev ping [ms]    =\t " + round(pingStats.getStdDev(), 2));
 
     println("");
     println("AS Stats      \t Unique / \tISD-ASes");
     // +1 for local AS
-    println(" ISD-ASes    =\t " + (uniqueASes.size() + 1) + " \t" + (nIsdAsTried + 1));
+    println(" ISD-ASes    =\t " + (uniqueASes.size() + 1) + " \t" + (nIsdAsTried.get() + 1));
     println(" success     =\t " + uniqueSuccess.size() + " \t" + nAsSuccess);
     println(" no path     =\t " + uniqueNoPath.size() + " \t" + nAsNoPathFound);
     println(" timeout     =\t " + uniqueTimeout.size() + " \t" + nAsTimeout);
@@ -170,38 +206,27 @@ public class ResultSummary {
       println(" success    =\t " + ICMP.nIcmpSuccess);
       println(" timeout    =\t " + ICMP.nIcmpTimeout);
       println(" error      =\t " + ICMP.nIcmpError);
+      println(" cached     =\t " + ICMP.nIcmpCached);
     }
   }
 
-  private double avg(Predicate<Result> filter, ToDoubleFunction<Result> mapper) {
-    return results.stream().filter(filter).mapToDouble(mapper).average().orElse(-1);
-  }
-
-  private Result max(Predicate<Result> filter, Comparator<Result> comparator) {
-    return results.stream().filter(filter).max(comparator).orElse(Result.createDummy());
+  private static Result orDummy(Result r) {
+    return r != null ? r : Result.createDummy();
   }
 
-  private <T> double median(Predicate<Result> filter, Function<Result, T> mapper) {
-    List<T> list =
-        results.stream().filter(filter).map(mapper).sorted().collect(Collectors.toList());
-    if (list.isEmpty()) {
-      return -1;
-    }
-    if (list.get(0) instanceof Double) {
-      return (Double) list.get(list.size() / 2);
-    }
-    return (Integer) list.get(list.size() / 2);
+  private static String pad(String label) {
+    return String.format("%-20s", label);
   }
 
-  public void checkTotalMax(long remote, int size) {
+  public synchronized void checkTotalMax(long remote, int size) {
     if (size > totalMaxPathsN) {
       totalMaxPathsN = size;
       totalMaxPathsIsdAs = remote;
     }
   }
 
-  public void checkTotalMax(long isdAs, Scmp.TimedMessage msg) {
-    int nHops = PathRawParser.create(msg.getPath().getRawPath()).getHopCount();
+  public synchronized void checkTotalMax(long isdAs, Scmp.TimedMessage msg) {
+    int nHops = PathInfo.get(msg.getPath()).getHopCount();
     if (nHops > totalMaxHopsN) {
       totalMaxHopsN = nHops;
       totalMaxHopsIsdAs = isdAs;
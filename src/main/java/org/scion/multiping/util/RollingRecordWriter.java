@@ -0,0 +1,246 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes records to a sequence of segment files.<br>
+ * A new segment is started after a number of rounds, after a time interval or when the segment
+ * exceeds a size limit, whichever comes first. Segments can optionally be GZIP compressed.
+ *
+ * <p>For an output file "output.csv", segments are called "output-00001.csv(.gz)", etc. While a
+ * segment is being written it has the suffix ".partial". It is renamed when it is complete, so
+ * complete segments can be collected while the measurement is still running.<br>
+ * The manifest "output-manifest.csv" lists all complete segments with the time range and number of
+ * their records. It is updated whenever a segment is complete.
+ */
+public class RollingRecordWriter implements RecordWriter {
+  private static final String PARTIAL = ".partial";
+
+  private final Path directory;
+  private final String baseName;
+  private final String extension;
+  private final String format;
+  private final boolean compress;
+  private final int roundsPerSegment;
+  private final long intervalMillis;
+  private final long maxBytes;
+  private final Path manifest;
+  private final List<Segment> completed = new ArrayList<>();
+  private Segment current;
+  private int nSegments = 0;
+  private boolean isClosed = false;
+
+  private static class Segment {
+    private final Path file;
+    private final Path partialFile;
+    private final CountingOutputStream counter;
+    private final RecordWriter writer;
+    private final long startMillis = System.currentTimeMillis();
+    private long firstEpochNanos = Long.MAX_VALUE;
+    private long lastEpochNanos = Long.MIN_VALUE;
+    private long nRecords = 0;
+    private int nRounds = 0;
+
+    private Segment(Path file, CountingOutputStream counter, RecordWriter writer) {
+      this.file = file;
+      this.partialFile = file.resolveSibling(file.getFileName() + PARTIAL);
+      this.counter = counter;
+      this.writer = writer;
+    }
+  }
+
+  private static class CountingOutputStream extends FilterOutputStream {
+    private long nBytes = 0;
+
+    private CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      nBytes++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      nBytes += len;
+    }
+  }
+
+  public RollingRecordWriter(Config config) {
+    this(
+        Paths.get(config.outputFile),
+        config.outputFormat,
+        config.outputCompress,
+        config.outputRotateRounds,
+        config.outputRotateIntervalSec * 1000L,
+        config.outputRotateBytes);
+  }
+
+  /**
+   * @param outputFile output file name, segment names are derived from it
+   * @param format output format, see {@link RecordWriter#create(OutputStream, String)}
+   * @param compress GZIP compression of segments
+   * @param roundsPerSegment maximum number of rounds per segment or 0
+   * @param intervalMillis maximum time per segment or 0
+   * @param maxBytes maximum (compressed) size per segment or 0
+   */
+  public RollingRecordWriter(
+      Path outputFile,
+      String format,
+      boolean compress,
+      int roundsPerSegment,
+      long intervalMillis,
+      long maxBytes) {
+    Path parent = outputFile.toAbsolutePath().getParent();
+    String name = outputFile.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    this.directory = parent;
+    this.baseName = dot > 0 ? name.substring(0, dot) : name;
+    this.extension = (dot > 0 ? name.substring(dot) : "") + (compress ? ".gz" : "");
+    this.format = format;
+    this.compress = compress;
+    this.roundsPerSegment = roundsPerSegment;
+    this.intervalMillis = intervalMillis;
+    this.maxBytes = maxBytes;
+    this.manifest = directory.resolve(baseName + "-manifest.csv");
+  }
+
+  static boolean isEnabled(Config config) {
+    return config.outputCompress
+        || config.outputRotateRounds > 0
+        || config.outputRotateIntervalSec > 0
+        || config.outputRotateBytes > 0;
+  }
+
+  @Override
+  public void write(Record rec) {
+    if (current != null && isIntervalExceeded()) {
+      completeSegment();
+    }
+    if (current == null) {
+      current = startSegment();
+    }
+    // The record may be released by the writer, so access it before writing.
+    current.firstEpochNanos = Math.min(current.firstEpochNanos, rec.getEpochNanos());
+    current.lastEpochNanos = Math.max(current.lastEpochNanos, rec.getEpochNanos());
+    current.writer.write(rec);
+    current.nRecords++;
+    completeSegmentIfFull();
+  }
+
+  /** Output is buffered, so the size of a segment is checked after every write and flush. */
+  private void completeSegmentIfFull() {
+    if (maxBytes > 0 && current.counter.nBytes >= maxBytes) {
+      completeSegment();
+    }
+  }
+
+  @Override
+  public void endRound() {
+    if (current == null) {
+      return;
+    }
+    current.nRounds++;
+    if ((roundsPerSegment > 0 && current.nRounds >= roundsPerSegment) || isIntervalExceeded()) {
+      completeSegment();
+    }
+  }
+
+  private boolean isIntervalExceeded() {
+    return intervalMillis > 0 && System.currentTimeMillis() - current.startMillis >= intervalMillis;
+  }
+
+  private Segment startSegment() {
+    nSegments++;
+    Path file = directory.resolve(String.format("%s-%05d%s", baseName, nSegments, extension));
+    Path partialFile = file.resolveSibling(file.getFileName() + PARTIAL);
+    try {
+      CountingOutputStream counter =
+          new CountingOutputStream(new FileOutputStream(partialFile.toFile()));
+      OutputStream out = compress ? new GZIPOutputStream(counter, 8192) : counter;
+      return new Segment(file, counter, RecordWriter.create(out, format));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void completeSegment() {
+    Segment segment = current;
+    current = null;
+    segment.writer.close();
+    try {
+      Files.move(segment.partialFile, segment.file, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    completed.add(segment);
+    writeManifest();
+  }
+
+  private void writeManifest() {
+    Path partial = manifest.resolveSibling(manifest.getFileName() + PARTIAL);
+    try (Writer out = Files.newBufferedWriter(partial)) {
+      out.write("file,firstTime,lastTime,records,bytes" + System.lineSeparator());
+      for (Segment s : completed) {
+        out.write(s.file.getFileName().toString());
+        out.write("," + Util.toInstant(s.firstEpochNanos));
+        out.write("," + Util.toInstant(s.lastEpochNanos));
+        out.write("," + s.nRecords + "," + s.counter.nBytes + System.lineSeparator());
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    try {
+      Files.move(
+          partial, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void flush() {
+    if (current != null) {
+      current.writer.flush();
+      completeSegmentIfFull();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (isClosed) {
+      return;
+    }
+    isClosed = true;
+    if (current != null) {
+      completeSegment();
+    }
+  }
+}
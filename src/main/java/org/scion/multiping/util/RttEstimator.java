@@ -0,0 +1,95 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+/**
+ * Round-trip time estimator that computes a timeout as specified for the retransmission timeout
+ * (RTO) in RFC 6298: the smoothed RTT (SRTT) and the RTT variation (RTTVAR) are updated with every
+ * sample and the timeout is SRTT + 4 * RTTVAR, clamped to a floor and a ceiling. Before the first
+ * sample, the timeout is the initial timeout.
+ *
+ * <p>On a stable path RTTVAR shrinks to almost 0, so that SRTT + 4 * RTTVAR would declare a reply
+ * that is only slightly slower than usual as lost. The timeout is therefore at least 2 * SRTT.
+ *
+ * <p>Unlike TCP, there is no exponential backoff after a timeout. Probes are never retransmitted
+ * and late replies are still used as samples, so the estimate follows paths that become slower.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class RttEstimator {
+  private static final double ALPHA = 1 / 8.0;
+  private static final double BETA = 1 / 4.0;
+  private static final int K = 4;
+  private static final double SRTT_FACTOR = 2;
+  // Clock granularity "G" of RFC 6298.
+  private static final double GRANULARITY_MS = 1;
+
+  private final double minTimeoutMs;
+  private final double maxTimeoutMs;
+  private double srttMs;
+  private double rttVarMs;
+  private double timeoutMs;
+  private long nSamples = 0;
+
+  /**
+   * @param initialTimeoutMs timeout before the first sample
+   * @param minTimeoutMs lower bound of the timeout
+   * @param maxTimeoutMs upper bound of the timeout
+   */
+  public RttEstimator(double initialTimeoutMs, double minTimeoutMs, double maxTimeoutMs) {
+    this.minTimeoutMs = Math.min(minTimeoutMs, maxTimeoutMs);
+    this.maxTimeoutMs = maxTimeoutMs;
+    this.timeoutMs = clamp(initialTimeoutMs);
+  }
+
+  /**
+   * @param rttMs measured round-trip time in milliseconds
+   */
+  public void addSample(double rttMs) {
+    if (nSamples == 0) {
+      srttMs = rttMs;
+      rttVarMs = rttMs / 2;
+    } else {
+      rttVarMs = (1 - BETA) * rttVarMs + BETA * Math.abs(srttMs - rttMs);
+      srttMs = (1 - ALPHA) * srttMs + ALPHA * rttMs;
+    }
+    nSamples++;
+    double rtoMs = srttMs + Math.max(GRANULARITY_MS, K * rttVarMs);
+    timeoutMs = clamp(Math.max(SRTT_FACTOR * srttMs, rtoMs));
+  }
+
+  private double clamp(double ms) {
+    return Math.max(minTimeoutMs, Math.min(maxTimeoutMs, ms));
+  }
+
+  public double getTimeoutMs() {
+    return timeoutMs;
+  }
+
+  public double getSrttMs() {
+    return srttMs;
+  }
+
+  public double getRttVarMs() {
+    return rttVarMs;
+  }
+
+  public long getSampleCount() {
+    return nSamples;
+  }
+
+  public boolean hasSamples() {
+    return nSamples > 0;
+  }
+}
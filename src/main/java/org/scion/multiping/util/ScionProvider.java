@@ -28,6 +28,8 @@ public class ScionProvider {
   public interface Async extends AutoCloseable {
     int sendTracerouteLast(Path path) throws IOException;
 
+    int sendEcho(Path path, ByteBuffer data) throws IOException;
+
     void close() throws IOException;
   }
 
@@ -51,6 +53,11 @@ public class ScionProvider {
       return sender.sendTracerouteLast(path);
     }
 
+    @Override
+    public int sendEcho(Path path, ByteBuffer data) throws IOException {
+      return sender.sendEcho(path, data);
+    }
+
     @Override
     public void close() throws IOException {
       sender.close();
@@ -80,11 +87,68 @@ public class ScionProvider {
     }
   }
 
+  /** Delays all requests according to the pacer. */
+  private static class PacedAsync implements Async {
+    private final Async sender;
+    private final ProbePacer pacer;
+
+    PacedAsync(Async sender, ProbePacer pacer) {
+      this.sender = sender;
+      this.pacer = pacer;
+    }
+
+    @Override
+    public int sendTracerouteLast(Path path) throws IOException {
+      pacer.acquire();
+      return sender.sendTracerouteLast(path);
+    }
+
+    @Override
+    public int sendEcho(Path path, ByteBuffer data) throws IOException {
+      pacer.acquire();
+      return sender.sendEcho(path, data);
+    }
+
+    @Override
+    public void close() throws IOException {
+      sender.close();
+    }
+  }
+
+  /** Delays all requests according to the pacer. */
+  private static class PacedSync implements Sync {
+    private final Sync sender;
+    private final ProbePacer pacer;
+
+    PacedSync(Sync sender, ProbePacer pacer) {
+      this.sender = sender;
+      this.pacer = pacer;
+    }
+
+    @Override
+    public Scmp.EchoMessage sendEchoRequest(Path path, ByteBuffer bb) throws IOException {
+      pacer.acquire();
+      return sender.sendEchoRequest(path, bb);
+    }
+
+    @Override
+    public List<Scmp.TracerouteMessage> sendTracerouteRequest(Path path) throws IOException {
+      pacer.acquire();
+      return sender.sendTracerouteRequest(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+      sender.close();
+    }
+  }
+
   private final Supplier<Sync> senderSupplier;
   private final Function<ScmpSenderAsync.ResponseHandler, Async> senderAsyncSupplier;
   private final Supplier<List<ParseAssignments.HostEntry>> assignmentSupplier;
   private final Supplier<Long> localIsdAsSupplier;
-  private final BiFunction<Long, InetSocketAddress, List<Path>> localDefaultPathsSupplier;
+  private final PathCache pathCache;
+  private ProbePacer pacer = ProbePacer.unlimited();
 
   public static ScionProvider defaultProvider(int localPort) {
     return new ScionProvider(
@@ -120,7 +184,7 @@ public class ScionProvider {
     this.senderSupplier = senderSupplier;
     this.senderAsyncSupplier = senderAsyncSupplier;
     this.localIsdAsSupplier = localIsdAsSupplier;
-    this.localDefaultPathsSupplier = localDefaultPathsSupplier;
+    this.pathCache = new PathCache(localDefaultPathsSupplier);
   }
 
   public List<ParseAssignments.HostEntry> getIsdAsEntries() {
@@ -128,15 +192,30 @@ public class ScionProvider {
   }
 
   public Async getAsync(ScmpSenderAsync.ResponseHandler handler) {
-    return senderAsyncSupplier.apply(handler);
+    return new PacedAsync(senderAsyncSupplier.apply(handler), pacer);
   }
 
   public Sync getSync() {
-    return senderSupplier.get();
+    return new PacedSync(senderSupplier.get(), pacer);
+  }
+
+  /**
+   * @param pacer Pacer that is shared by all senders created by this provider.
+   */
+  public void setPacer(ProbePacer pacer) {
+    this.pacer = pacer;
+  }
+
+  public ProbePacer getPacer() {
+    return pacer;
   }
 
   public List<Path> getPaths(long isdAs, InetSocketAddress destinationAddress) {
-    return localDefaultPathsSupplier.apply(isdAs, destinationAddress);
+    return pathCache.getPaths(isdAs, destinationAddress);
+  }
+
+  public PathCache getPathCache() {
+    return pathCache;
   }
 
   public long getLocalIsdAs() {
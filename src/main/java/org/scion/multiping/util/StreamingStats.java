@@ -0,0 +1,92 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+/**
+ * Running count, minimum, maximum, mean and variance (Welford's algorithm) plus a {@link
+ * LatencyHistogram} for percentiles. Memory usage is constant and updates are O(1).
+ *
+ * <p>This class is not thread-safe.
+ */
+public class StreamingStats {
+  private final LatencyHistogram histogram = new LatencyHistogram();
+  private long count = 0;
+  private double min = Double.MAX_VALUE;
+  private double max = -Double.MAX_VALUE;
+  private double mean = 0;
+  private double m2 = 0;
+
+  public void add(double value) {
+    count++;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+    double delta = value - mean;
+    mean += delta / count;
+    m2 += delta * (value - mean);
+    histogram.add(value);
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return The minimum value or -1 if no values have been recorded.
+   */
+  public double getMin() {
+    return count == 0 ? -1 : min;
+  }
+
+  /**
+   * @return The maximum value or -1 if no values have been recorded.
+   */
+  public double getMax() {
+    return count == 0 ? -1 : max;
+  }
+
+  /**
+   * @return The mean value or -1 if no values have been recorded.
+   */
+  public double getMean() {
+    return count == 0 ? -1 : mean;
+  }
+
+  /**
+   * @return The sample variance or 0 if less than two values have been recorded.
+   */
+  public double getVariance() {
+    return count < 2 ? 0 : m2 / (count - 1);
+  }
+
+  public double getStdDev() {
+    return Math.sqrt(getVariance());
+  }
+
+  /**
+   * @param percentile percentile between 0 and 100, e.g. 99.9
+   * @return The estimated value at the given percentile or -1 if no values have been recorded.
+   */
+  public double getPercentile(double percentile) {
+    return histogram.getPercentile(percentile);
+  }
+
+  public void clear() {
+    histogram.clear();
+    count = 0;
+    min = Double.MAX_VALUE;
+    max = -Double.MAX_VALUE;
+    mean = 0;
+    m2 = 0;
+  }
+}
@@ -14,11 +14,14 @@
 
 package org.scion.multiping.util;
 
+import java.time.Instant;
+
 public class Util {
 
   public static boolean PRINT = true;
   public static boolean DELAYED_PRINT = false; // print only at newlines
   private static final StringBuilder sb = new StringBuilder();
+  private static volatile long epochNanosOffset = toEpochNanos(Instant.now()) - System.nanoTime();
 
   private Util() {}
 
@@ -65,11 +68,47 @@ public class Util {
     sb.setLength(0);
   }
 
+  /**
+   * Wall clock time with nanosecond resolution that does not allocate. The time is derived from
+   * {@link System#nanoTime()} and resynchronized with the wall clock when they drift apart by more
+   * than 1ms.
+   *
+   * @return Nanoseconds since epoch.
+   */
+  public static long epochNanos() {
+    long nanos = epochNanosOffset + System.nanoTime();
+    if (Math.abs(nanos / 1_000_000 - System.currentTimeMillis()) > 1) {
+      epochNanosOffset = toEpochNanos(Instant.now()) - System.nanoTime();
+      nanos = epochNanosOffset + System.nanoTime();
+    }
+    return nanos;
+  }
+
+  public static long toEpochNanos(Instant time) {
+    return time.getEpochSecond() * 1_000_000_000L + time.getNano();
+  }
+
+  public static Instant toInstant(long epochNanos) {
+    return Instant.ofEpochSecond(
+        Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L));
+  }
+
   public static double round(double d, int nDigits) {
     double div = Math.pow(10, nDigits);
     return Math.round(d * div) / div;
   }
 
+  /**
+   * @param percentile percentile, e.g. 99.9
+   * @return Label such as "p50" or "p99.9"
+   */
+  public static String toPercentileLabel(double percentile) {
+    if (percentile == Math.rint(percentile)) {
+      return "p" + (long) percentile;
+    }
+    return "p" + percentile;
+  }
+
   public static class Ref<T> {
     public T t;
 
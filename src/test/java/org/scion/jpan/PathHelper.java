@@ -16,6 +16,7 @@ package org.scion.jpan;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,10 +25,34 @@ public class PathHelper {
   private PathHelper() {}
 
   public static List<Path> createPaths(int n) {
+    return createPaths(n, 0);
+  }
+
+  /**
+   * Create paths with a valid raw path header.
+   *
+   * @param n number of paths
+   * @param nHops number of hops per path, or 0 for empty raw paths
+   * @return paths
+   */
+  public static List<Path> createPaths(int n, int nHops) {
+    return createPaths(n, nHops, 0);
+  }
+
+  /**
+   * Create paths with a valid raw path header.
+   *
+   * @param n number of paths
+   * @param nHops number of hops per path, or 0 for empty raw paths
+   * @param expirationSeconds expiration time in seconds since epoch
+   * @return paths
+   */
+  public static List<Path> createPaths(int n, int nHops, long expirationSeconds) {
     List<Path> paths = new ArrayList<>();
     for (int i = 0; i < n; i++) {
       PathMetadata.Builder builder = PathMetadata.newBuilder();
-      builder.setRaw(new byte[] {});
+      builder.setRaw(createRawPath(nHops));
+      builder.setExpiration(expirationSeconds);
       builder.setSrcIsdAs(1000);
       builder.setDstIsdAs(n + 1);
       try {
@@ -39,4 +64,47 @@ public class PathHelper {
     }
     return paths;
   }
+
+  /**
+   * Create a single path with a valid raw path header.
+   *
+   * @param srcIsdAs source ISD/AS
+   * @param dstIsdAs destination ISD/AS
+   * @param nHops number of hops, or 0 for an empty raw path
+   * @param pathId ID that is stored in the info field, so that raw paths with different IDs differ
+   * @param dst destination address
+   * @param port destination port
+   * @param expirationSeconds expiration time in seconds since epoch
+   * @return path
+   */
+  public static Path createPath(
+      long srcIsdAs,
+      long dstIsdAs,
+      int nHops,
+      long pathId,
+      InetAddress dst,
+      int port,
+      long expirationSeconds) {
+    PathMetadata.Builder builder = PathMetadata.newBuilder();
+    builder.setRaw(createRawPath(nHops, pathId));
+    builder.setExpiration(expirationSeconds);
+    builder.setSrcIsdAs(srcIsdAs);
+    builder.setDstIsdAs(dstIsdAs);
+    return RequestPath.create(builder.build(), dst, port);
+  }
+
+  private static byte[] createRawPath(int nHops) {
+    return createRawPath(nHops, 0);
+  }
+
+  private static byte[] createRawPath(int nHops, long pathId) {
+    if (nHops == 0) {
+      return new byte[] {};
+    }
+    // PathMeta header + one info field + hop fields, all hops in segment 0
+    ByteBuffer raw = ByteBuffer.allocate(4 + 8 + 12 * nHops);
+    raw.putInt(nHops << 12);
+    raw.putLong(pathId);
+    return raw.array();
+  }
 }
@@ -15,22 +15,35 @@
 package org.scion.multiping;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 import org.scion.jpan.*;
 import org.scion.multiping.util.Helper;
+import org.scion.multiping.util.ParseAssignments;
 import org.scion.multiping.util.ResultSummary;
 import org.scion.multiping.util.ScionProvider;
+import org.scion.multiping.util.SimulatedNetwork;
 
 class PingAllTest {
 
   @FunctionalInterface
   interface AsyncNoClose extends ScionProvider.Async {
+    @Override
+    default int sendEcho(Path path, ByteBuffer data) {
+      throw new UnsupportedOperationException();
+    }
+
     @Override
     default void close() {}
   }
@@ -68,6 +81,43 @@ class PingAllTest {
     }
   }
 
+  /** Responds asynchronously to every request, similar to a real sender. */
+  static class WithAsyncResponses implements AsyncNoClose {
+    private final ScmpSenderAsync.ResponseHandler handler;
+    private int sequenceId = 0;
+
+    WithAsyncResponses(ScmpSenderAsync.ResponseHandler handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public int sendEcho(Path path, ByteBuffer data) {
+      int seqId = sequenceId++;
+      CompletableFuture.runAsync(
+          () -> {
+            Scmp.EchoMessage msg =
+                Scmp.EchoMessage.create(Scmp.TypeCode.TYPE_129, seqId, seqId, path);
+            msg.assignRequest(msg, 1_000_000 + seqId); // Hack: assign to itself
+            handler.onResponse(msg);
+          });
+      return seqId;
+    }
+
+    @Override
+    public int sendTracerouteLast(Path path) {
+      int seqId = sequenceId++;
+      CompletableFuture.runAsync(
+          () -> {
+            Scmp.TracerouteMessage req = Scmp.TracerouteMessage.createRequest(seqId, path);
+            Scmp.TracerouteMessage msg =
+                Scmp.TracerouteMessage.create(Scmp.TypeCode.TYPE_131, seqId, seqId, path);
+            msg.assignRequest(req, 1_000_000 + seqId);
+            handler.onResponse(msg);
+          });
+      return seqId;
+    }
+  }
+
   static class MySync implements ScionProvider.Sync {
     private final int sent;
     private int seqId = 0;
@@ -102,6 +152,34 @@ class PingAllTest {
     }
   }
 
+  /** Run PingAll and collect the lines printed to the console. */
+  private static ResultSummary runAndCapture(PingAll ping, List<String> lines) throws IOException {
+    PrintStream stdOut = System.out;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      System.setOut(new PrintStream(bytes, true));
+      return ping.run();
+    } finally {
+      System.setOut(stdOut);
+      lines.addAll(Arrays.asList(bytes.toString().split(System.lineSeparator())));
+    }
+  }
+
+  /** There must be one error line with the AS name for every AS, in the order of the input. */
+  private static void assertErrorLines(List<String> lines) {
+    List<String> errors = new ArrayList<>();
+    for (String line : lines) {
+      if (line.contains("ERROR: ")) {
+        errors.add(line);
+      }
+    }
+    List<ParseAssignments.HostEntry> entries = Helper.isdAsList();
+    assertEquals(entries.size(), errors.size(), String.join("\n", lines));
+    for (int i = 0; i < entries.size(); i++) {
+      assertTrue(errors.get(i).contains("\"" + entries.get(i).getName() + "\""), errors.get(i));
+    }
+  }
+
   @Test
   void testPingTimeout() throws IOException {
     List<Path> paths = PathHelper.createPaths(3);
@@ -160,9 +238,11 @@ class PingAllTest {
             () -> Long.valueOf(0),
             (ia, addr) -> PathHelper.createPaths(3));
     PingAll ping = new PingAll(PingAll.Policy.FASTEST_TR_ASYNC, p);
-    ResultSummary summary = ping.run();
+    List<String> lines = new ArrayList<>();
+    ResultSummary summary = runAndCapture(ping, lines);
     assertEquals(0, summary.getMaxPaths().getPathCount());
     assertEquals(3, summary.getAsErrors());
+    assertErrorLines(lines);
   }
 
   @Test
@@ -181,8 +261,85 @@ class PingAllTest {
             () -> Long.valueOf(0),
             (ia, addr) -> PathHelper.createPaths(3));
     PingAll ping = new PingAll(PingAll.Policy.FASTEST_TR_ASYNC, p);
-    ResultSummary summary = ping.run();
+    List<String> lines = new ArrayList<>();
+    ResultSummary summary = runAndCapture(ping, lines);
     assertEquals(0, summary.getMaxPaths().getPathCount());
     assertEquals(3, summary.getAsErrors());
+    assertErrorLines(lines);
+  }
+
+  @Test
+  void testPingConcurrent() throws IOException {
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> new MySync(3),
+            WithAsyncResponses::new,
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> PathHelper.createPaths(3));
+    PingAll ping = new PingAll(PingAll.Policy.FASTEST_TR_ASYNC, p, 2);
+    ResultSummary summary = ping.run();
+    assertEquals(3, summary.getMaxPaths().getPathCount());
+    assertEquals(0, summary.getAsErrors());
+    assertEquals(0, summary.getAsTimeouts());
+    assertEquals(0, summary.getPathTimeouts());
+  }
+
+  /** Replies that were queued while the probing thread was busy must not be reported missing. */
+  @Test
+  void testPingConcurrentSlowPathLookup() throws IOException {
+    AtomicInteger nLookups = new AtomicInteger();
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> {
+              throw new UnsupportedOperationException("Concurrent mode must not use a sync sender");
+            },
+            WithAsyncResponses::new,
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> {
+              if (nLookups.incrementAndGet() == 2) {
+                // Pass the response timeout of the first AS while its replies are queued.
+                sleep(1200);
+              }
+              return PathHelper.createPaths(3);
+            });
+    PingAll ping = new PingAll(PingAll.Policy.FASTEST_TR_ASYNC, p, 2);
+    ResultSummary summary = ping.run();
+    assertEquals(0, summary.getAsErrors());
+    assertEquals(0, summary.getAsTimeouts());
+    assertEquals(Helper.isdAsList().size(), summary.getPingStats().getCount());
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void testSimulatedNetwork() throws IOException {
+    SimulatedNetwork.Settings settings = new SimulatedNetwork.Settings();
+    settings.nAs = 500;
+    settings.minLatencyMs = 1;
+    settings.maxLatencyMs = 5;
+    settings.lossPercent = 1;
+    settings.timeoutMs = 50;
+    try (SimulatedNetwork network = new SimulatedNetwork(settings)) {
+      PingAll ping = new PingAll(PingAll.Policy.FASTEST_TR_ASYNC, network.createProvider(), 16);
+      ResultSummary summary = ping.run();
+      int nPaths = 0;
+      for (ParseAssignments.HostEntry e : network.getIsdAsEntries()) {
+        nPaths += network.getPaths(e.getIsdAs(), null).size();
+      }
+      assertEquals(0, summary.getAsErrors());
+      assertEquals(nPaths, summary.getPathTried());
+      // Lost repetitions on the best path are not counted as path timeouts
+      assertTrue(summary.getPathTimeouts() > 0);
+      assertTrue(summary.getPathTimeouts() <= network.getLostCount());
+    }
   }
 }
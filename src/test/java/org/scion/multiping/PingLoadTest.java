@@ -0,0 +1,174 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+import org.scion.jpan.ScmpSenderAsync;
+import org.scion.multiping.util.Config;
+import org.scion.multiping.util.Helper;
+import org.scion.multiping.util.ScionProvider;
+
+class PingLoadTest {
+
+  private static Config createConfig() {
+    Config config = new Config();
+    config.loadStartPps = 200;
+    config.loadStepPps = 200;
+    config.loadMaxPps = 600;
+    config.loadStepDurationSec = 0.1;
+    config.attemptTimeoutMs = 1000;
+    return config;
+  }
+
+  private static ScionProvider createProvider(
+      java.util.function.Function<ScmpSenderAsync.ResponseHandler, ScionProvider.Async> sender) {
+    return ScionProvider.createSync(
+        () -> new PingAllTest.MySync(3),
+        sender,
+        Helper::isdAsList,
+        () -> Long.valueOf(0),
+        (ia, addr) -> PathHelper.createPaths(1, 2));
+  }
+
+  @Test
+  void testSteps() throws IOException {
+    Config config = createConfig();
+    Path path = PathHelper.createPaths(1, 2).get(0);
+    PingLoad load = new PingLoad(createProvider(PingAllTest.WithAsyncResponses::new), config);
+    List<PingLoad.Step> steps = load.run(path);
+
+    assertEquals(3, steps.size());
+    for (int i = 0; i < steps.size(); i++) {
+      PingLoad.Step step = steps.get(i);
+      assertEquals(200.0 * (i + 1), step.getTargetPps());
+      assertEquals(20L * (i + 1), step.getSentCount());
+      assertEquals(step.getSentCount(), step.getReceivedCount());
+      assertEquals(0, step.getLossPercent());
+      assertTrue(step.getRttPercentile(50) >= 1.0, "" + step.getRttPercentile(50));
+      assertTrue(step.getAchievedPps() > 0);
+      assertTrue(step.meetsSlo(config));
+    }
+    assertEquals(steps.get(2).getAchievedPps(), PingLoad.getCapacity(steps, config));
+  }
+
+  @Test
+  void testRemotePorts() throws IOException {
+    Config config = createConfig();
+    config.loadStepPps = 0;
+    List<Path> paths = new ArrayList<>();
+    for (int port = 30041; port < 30044; port++) {
+      paths.add(PathHelper.createPath(1000, 2, 2, 0, InetAddress.getLoopbackAddress(), port, 0));
+    }
+    Map<Integer, AtomicInteger> perPort = new ConcurrentHashMap<>();
+    PingLoad load =
+        new PingLoad(
+            createProvider(
+                h ->
+                    new PingAllTest.WithAsyncResponses(h) {
+                      @Override
+                      public int sendEcho(Path path, ByteBuffer data) {
+                        perPort
+                            .computeIfAbsent(path.getRemotePort(), k -> new AtomicInteger())
+                            .incrementAndGet();
+                        return super.sendEcho(path, data);
+                      }
+                    }),
+            config);
+    List<PingLoad.Step> steps = load.run(paths);
+
+    assertEquals(1, steps.size());
+    assertEquals(20, steps.get(0).getReceivedCount());
+    // Round-robin over all ports
+    assertEquals(3, perPort.size());
+    for (AtomicInteger n : perPort.values()) {
+      assertTrue(n.get() == 6 || n.get() == 7, perPort.toString());
+    }
+  }
+
+  @Test
+  void testLossSlo() throws IOException {
+    Config config = createConfig();
+    config.attemptTimeoutMs = 100;
+    Path path = PathHelper.createPaths(1, 2).get(0);
+    PingLoad load = new PingLoad(createProvider(h -> new PingRepeatTest.NoResponse()), config);
+    List<PingLoad.Step> steps = load.run(path);
+
+    // The first step breaks the SLO
+    assertEquals(1, steps.size());
+    assertEquals(20, steps.get(0).getSentCount());
+    assertEquals(0, steps.get(0).getReceivedCount());
+    assertEquals(100, steps.get(0).getLossPercent());
+    assertEquals(0, PingLoad.getCapacity(steps, config));
+  }
+
+  @Test
+  void testErrors() throws IOException {
+    Config config = createConfig();
+    config.loadStepPps = 0;
+    config.attemptTimeoutMs = 10_000;
+    Path path = PathHelper.createPaths(1, 2).get(0);
+    AtomicInteger nSent = new AtomicInteger();
+    PingLoad load =
+        new PingLoad(
+            createProvider(
+                h ->
+                    new PingAllTest.WithAsyncResponses(h) {
+                      @Override
+                      public int sendEcho(Path path, ByteBuffer data) {
+                        if (nSent.incrementAndGet() % 2 == 0) {
+                          h.onException(new IOException("Receive failed"));
+                          return nSent.get();
+                        }
+                        return super.sendEcho(path, data);
+                      }
+                    }),
+            config);
+    long start = System.currentTimeMillis();
+    List<PingLoad.Step> steps = load.run(path);
+
+    // Errors complete their request, the step does not wait for the timeout
+    assertTrue(System.currentTimeMillis() - start < config.attemptTimeoutMs / 2);
+    assertEquals(1, steps.size());
+    assertEquals(20, steps.get(0).getSentCount());
+    assertEquals(10, steps.get(0).getReceivedCount());
+    assertEquals(10, steps.get(0).getTotalErrorCount());
+    assertEquals(0, steps.get(0).getLossPercent());
+    assertTrue(steps.get(0).meetsSlo(config));
+  }
+
+  @Test
+  void testLatencySlo() throws IOException {
+    Config config = createConfig();
+    config.loadMaxP99Ms = 0.5; // responses take 1ms
+    Path path = PathHelper.createPaths(1, 2).get(0);
+    PingLoad load = new PingLoad(createProvider(PingAllTest.WithAsyncResponses::new), config);
+    List<PingLoad.Step> steps = load.run(path);
+
+    assertEquals(1, steps.size());
+    assertEquals(0, steps.get(0).getLossPercent());
+    assertFalse(steps.get(0).meetsSlo(config));
+  }
+}
@@ -0,0 +1,462 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scion.multiping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.scion.jpan.*;
+import org.scion.multiping.util.Config;
+import org.scion.multiping.util.CsvRecordWriter;
+import org.scion.multiping.util.Helper;
+import org.scion.multiping.util.ParseAssignments;
+import org.scion.multiping.util.PathInfo;
+import org.scion.multiping.util.PathStatsTable;
+import org.scion.multiping.util.RecordWriter;
+import org.scion.multiping.util.ScionProvider;
+import org.scion.multiping.util.SimulatedNetwork;
+
+class PingRepeatTest {
+
+  @TempDir java.nio.file.Path tempDir;
+
+  /** Never responds. */
+  static class NoResponse implements PingAllTest.AsyncNoClose {
+    private int sequenceId = 0;
+
+    @Override
+    public int sendEcho(Path path, ByteBuffer data) {
+      return sequenceId++;
+    }
+
+    @Override
+    public int sendTracerouteLast(Path path) {
+      return sequenceId++;
+    }
+  }
+
+  /**
+   * Responds after 1ms along paths with 2 hops and after "slowMs" along all other paths. Only the
+   * first "slowReplies" requests along the other paths are answered.
+   */
+  static class DelayedResponses implements PingAllTest.AsyncNoClose {
+    private final ScmpSenderAsync.ResponseHandler handler;
+    private final long slowMs;
+    private int slowReplies;
+    private final ScheduledExecutorService timer =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "delayed-responses");
+              t.setDaemon(true);
+              return t;
+            });
+    private int sequenceId = 0;
+
+    DelayedResponses(ScmpSenderAsync.ResponseHandler handler, long slowMs, int slowReplies) {
+      this.handler = handler;
+      this.slowMs = slowMs;
+      this.slowReplies = slowReplies;
+    }
+
+    @Override
+    public int sendEcho(Path path, ByteBuffer data) {
+      int seqId = sequenceId++;
+      boolean isFast = PathInfo.get(path).getHopCount() == 2;
+      if (isFast || slowReplies-- > 0) {
+        long delayMs = isFast ? 1 : slowMs;
+        Scmp.EchoMessage req = Scmp.EchoMessage.createRequest(seqId, path, data);
+        Scmp.EchoMessage msg = Scmp.EchoMessage.create(Scmp.TypeCode.TYPE_129, seqId, seqId, path);
+        msg.assignRequest(req, TimeUnit.MILLISECONDS.toNanos(delayMs));
+        timer.schedule(() -> handler.onResponse(msg), delayMs, TimeUnit.MILLISECONDS);
+      }
+      return seqId;
+    }
+
+    @Override
+    public int sendTracerouteLast(Path path) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** One fast path with 2 hops and one slow path with 3 hops. */
+  private static List<Path> createFastAndSlowPaths() {
+    return Arrays.asList(PathHelper.createPaths(1, 2).get(0), PathHelper.createPaths(1, 3).get(0));
+  }
+
+  private static Config createConfig() {
+    Config config = new Config();
+    config.attemptRepeatCnt = 3;
+    config.attemptDelayMs = 0;
+    config.roundRepeatCnt = 2;
+    config.roundDelaySec = 0;
+    return config;
+  }
+
+  @Test
+  void testRepeat() throws IOException {
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> new PingAllTest.MySync(3),
+            PingAllTest.WithAsyncResponses::new,
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> PathHelper.createPaths(2, 3));
+    java.nio.file.Path output = tempDir.resolve("output.csv");
+    try (RecordWriter writer = new CsvRecordWriter(new FileWriter(output.toFile()))) {
+      PingRepeat ping = new PingRepeat(p, createConfig(), writer);
+      ping.run(Helper.isdAsList());
+    }
+
+    // 2 rounds * 3 ASes * 2 paths
+    List<String> lines = Files.readAllLines(output);
+    assertEquals(12, lines.size());
+    for (String line : lines) {
+      String[] parts = line.split(",");
+      assertEquals("SUCCESS", parts[4], line);
+      assertEquals("3", parts[5], line);
+      // 7 columns + 3 attempts
+      assertEquals(10, parts.length, line);
+      assertTrue(parts[7].matches("1\\.0\\d*"), line);
+    }
+  }
+
+  @Test
+  void testPathStats() throws IOException {
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> new PingAllTest.MySync(3),
+            PingAllTest.WithAsyncResponses::new,
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> PathHelper.createPaths(2, 3));
+    Config config = createConfig();
+    config.pathStatsFile = tempDir.resolve("path-stats.csv").toString();
+    java.nio.file.Path output = tempDir.resolve("output.csv");
+    try (RecordWriter writer = new CsvRecordWriter(new FileWriter(output.toFile()))) {
+      PingRepeat ping = new PingRepeat(p, config, writer);
+      ping.run(Helper.isdAsList());
+      // All test paths are identical, including their destination ISD/AS
+      assertEquals(1, ping.getPathStats().size());
+    }
+
+    List<String> lines = Files.readAllLines(tempDir.resolve("path-stats.csv"));
+    assertEquals(
+        "isdAs,remoteIP,hops,path,attempts,lost,loss%,min,p50,p90,p99,p99.9,max,late,lateMax",
+        lines.get(0));
+    assertEquals(2, lines.size());
+    for (String line : lines.subList(1, lines.size())) {
+      String[] parts = line.split(",");
+      assertEquals("3", parts[2], line);
+      // 2 rounds * 3 ASes * 2 paths * 3 attempts
+      assertEquals("36", parts[4], line);
+      assertEquals("0", parts[5], line);
+      assertEquals("0.0", parts[6], line);
+      assertTrue(parts[8].matches("1\\.0\\d*"), line);
+      assertEquals("0", parts[13], line);
+    }
+  }
+
+  @Test
+  void testNoResponse() throws IOException {
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> new PingAllTest.MySync(3),
+            h -> new NoResponse(),
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> PathHelper.createPaths(2, 3));
+    Config config = createConfig();
+    config.roundRepeatCnt = 1;
+    config.attemptTimeoutMs = 20;
+    java.nio.file.Path output = tempDir.resolve("output.csv");
+    PingRepeat ping;
+    try (RecordWriter writer = new CsvRecordWriter(new FileWriter(output.toFile()))) {
+      ping = new PingRepeat(p, config, writer);
+      ping.run(Helper.isdAsList());
+    }
+
+    List<String> lines = Files.readAllLines(output);
+    assertEquals(6, lines.size());
+    for (String line : lines) {
+      assertTrue(line.contains(",ERROR,3,"), line);
+      assertTrue(line.endsWith(",TIMEOUT,TIMEOUT,TIMEOUT"), line);
+    }
+
+    Collection<PathStatsTable.Entry> stats = ping.getPathStats().getEntries();
+    assertEquals(1, stats.size());
+    for (PathStatsTable.Entry e : stats) {
+      assertEquals(100.0, e.getLossPercent());
+      assertEquals(-1, e.getLatencyMs().getPercentile(50));
+    }
+  }
+
+  /** SCMP errors cannot be matched to a request, the attempts must still be resolved. */
+  @Test
+  void testErrorResponse() throws IOException {
+    class ErrorResponse extends NoResponse {
+      private final ScmpSenderAsync.ResponseHandler handler;
+
+      ErrorResponse(ScmpSenderAsync.ResponseHandler handler) {
+        this.handler = handler;
+      }
+
+      @Override
+      public int sendEcho(Path path, ByteBuffer data) {
+        handler.onError(Scmp.ErrorMessage.create(Scmp.TypeCode.TYPE_5, path));
+        return super.sendEcho(path, data);
+      }
+    }
+
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> new PingAllTest.MySync(3),
+            h -> new ErrorResponse(h),
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> PathHelper.createPaths(2, 3));
+    Config config = createConfig();
+    config.roundRepeatCnt = 1;
+    config.attemptTimeoutMs = 20;
+    java.nio.file.Path output = tempDir.resolve("output.csv");
+    try (RecordWriter writer = new CsvRecordWriter(new FileWriter(output.toFile()))) {
+      PingRepeat ping = new PingRepeat(p, config, writer);
+      ping.run(Helper.isdAsList());
+    }
+
+    List<String> lines = Files.readAllLines(output);
+    assertEquals(6, lines.size());
+    for (String line : lines) {
+      assertTrue(line.endsWith(",TIMEOUT,TIMEOUT,TIMEOUT"), line);
+    }
+  }
+
+  @Test
+  void testPathPrefetch() throws IOException {
+    // All lookups of a round must be in flight concurrently, otherwise the latch times out.
+    int nDestinations = Helper.isdAsList().size();
+    CountDownLatch latch = new CountDownLatch(nDestinations);
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> new PingAllTest.MySync(3),
+            PingAllTest.WithAsyncResponses::new,
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> {
+              latch.countDown();
+              try {
+                if (!latch.await(5, TimeUnit.SECONDS)) {
+                  throw new ScionRuntimeException("Lookups are not concurrent");
+                }
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+              return PathHelper.createPaths(2, 3);
+            });
+    Config config = createConfig();
+    config.roundRepeatCnt = 1;
+    java.nio.file.Path output = tempDir.resolve("output.csv");
+    try (RecordWriter writer = new CsvRecordWriter(new FileWriter(output.toFile()))) {
+      PingRepeat ping = new PingRepeat(p, config, writer);
+      ping.run(Helper.isdAsList());
+    }
+
+    List<String> lines = Files.readAllLines(output);
+    assertEquals(nDestinations * 2, lines.size());
+    for (String line : lines) {
+      assertEquals("SUCCESS", line.split(",")[4], line);
+    }
+  }
+
+  @Test
+  void testPathLookupError() throws IOException {
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> new PingAllTest.MySync(3),
+            PingAllTest.WithAsyncResponses::new,
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> {
+              throw new ScionRuntimeException("No paths");
+            });
+    Config config = createConfig();
+    config.roundRepeatCnt = 1;
+    java.nio.file.Path output = tempDir.resolve("output.csv");
+    try (RecordWriter writer = new CsvRecordWriter(new FileWriter(output.toFile()))) {
+      PingRepeat ping = new PingRepeat(p, config, writer);
+      ping.run(Helper.isdAsList());
+    }
+
+    List<String> lines = Files.readAllLines(output);
+    assertEquals(Helper.isdAsList().size(), lines.size());
+    for (String line : lines) {
+      assertTrue(line.contains(",ERROR,"), line);
+    }
+  }
+
+  @Test
+  void testSimulatedNetwork() throws IOException {
+    SimulatedNetwork.Settings settings = new SimulatedNetwork.Settings();
+    settings.nAs = 50;
+    settings.maxPathsPerAs = 4;
+    settings.minLatencyMs = 1;
+    settings.maxLatencyMs = 5;
+    settings.lossPercent = 5;
+    settings.reorderPercent = 5;
+    settings.duplicatePercent = 5;
+    settings.timeoutMs = 50;
+    Config config = createConfig();
+    config.attemptTimeoutMs = 100;
+    try (SimulatedNetwork network = new SimulatedNetwork(settings)) {
+      java.nio.file.Path output = tempDir.resolve("output.csv");
+      PingRepeat ping;
+      try (RecordWriter writer = new CsvRecordWriter(new FileWriter(output.toFile()))) {
+        ping = new PingRepeat(network.createProvider(), config, writer);
+        ping.run(network.getIsdAsEntries());
+      }
+
+      int nPaths = 0;
+      for (ParseAssignments.HostEntry e : network.getIsdAsEntries()) {
+        nPaths += network.getPaths(e.getIsdAs(), null).size();
+      }
+      long attempts = 0;
+      long lost = 0;
+      for (PathStatsTable.Entry e : ping.getPathStats().getEntries()) {
+        attempts += e.getAttemptCount();
+        lost += e.getLostCount();
+      }
+      assertEquals(network.getSentCount(), attempts);
+      assertEquals(network.getLostCount(), lost);
+      // 2 rounds
+      assertEquals(2 * nPaths, Files.readAllLines(output).size());
+    }
+  }
+
+  @Test
+  void testAdaptiveTimeoutDeadPath() throws IOException {
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> new PingAllTest.MySync(3),
+            // The slow path never answers
+            h -> new DelayedResponses(h, 1, 0),
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> createFastAndSlowPaths());
+    Config config = createConfig();
+    config.roundRepeatCnt = 1;
+    config.attemptRepeatCnt = 5;
+    config.attemptTimeoutMs = 1000;
+    config.adaptiveTimeout = true;
+    config.adaptiveTimeoutMinMs = 20;
+    int nDestinations = Helper.isdAsList().size();
+    java.nio.file.Path output = tempDir.resolve("output.csv");
+    long start = System.currentTimeMillis();
+    try (RecordWriter writer = new CsvRecordWriter(new FileWriter(output.toFile()))) {
+      PingRepeat ping = new PingRepeat(p, config, writer);
+      ping.run(Helper.isdAsList());
+    }
+    long usedMs = System.currentTimeMillis() - start;
+    // The dead path uses the timeout learned from the fast path to the same destination.
+    long fixedTimeoutMs = (long) nDestinations * config.attemptRepeatCnt * config.attemptTimeoutMs;
+    assertTrue(usedMs < fixedTimeoutMs / 3, "usedMs=" + usedMs);
+
+    List<String> lines = Files.readAllLines(output);
+    assertEquals(nDestinations * 2, lines.size());
+    for (String line : lines) {
+      if (line.contains(",SUCCESS,")) {
+        assertTrue(line.endsWith(",1.0,1.0,1.0,1.0,1.0"), line);
+      } else {
+        assertTrue(line.endsWith(",TIMEOUT,TIMEOUT,TIMEOUT,TIMEOUT,TIMEOUT"), line);
+      }
+    }
+  }
+
+  @Test
+  void testAdaptiveTimeoutLateReplies() throws IOException {
+    ScionProvider p =
+        ScionProvider.createSync(
+            () -> new PingAllTest.MySync(3),
+            h -> new DelayedResponses(h, 300, Integer.MAX_VALUE),
+            Helper::isdAsList,
+            () -> Long.valueOf(0),
+            (ia, addr) -> createFastAndSlowPaths());
+    Config config = createConfig();
+    config.roundRepeatCnt = 1;
+    config.attemptTimeoutMs = 150;
+    config.adaptiveTimeout = true;
+    config.adaptiveTimeoutMinMs = 20;
+    // Replies to the slow path arrive during the next attempt
+    config.attemptDelayMs = 250;
+    java.nio.file.Path output = tempDir.resolve("output.csv");
+    PingRepeat ping;
+    try (RecordWriter writer = new CsvRecordWriter(new FileWriter(output.toFile()))) {
+      ping = new PingRepeat(p, config, writer);
+      ping.run(Helper.isdAsList());
+    }
+
+    int nDestinations = Helper.isdAsList().size();
+    long late = 0;
+    long lostSlow = 0;
+    long successSlow = 0;
+    for (PathStatsTable.Entry e : ping.getPathStats().getEntries()) {
+      if (e.getHopCount() == 2) {
+        assertEquals(0, e.getLostCount());
+        assertEquals(0, e.getLateCount());
+      } else {
+        lostSlow += e.getLostCount();
+        successSlow += e.getAttemptCount() - e.getLostCount();
+        late += e.getLateCount();
+        if (e.getLateCount() > 0) {
+          assertEquals(300.0, e.getLateMaxMs());
+        }
+        if (e.getLatencyMs().getCount() > 0) {
+          assertEquals(300.0, e.getLatencyMs().getMax(), 1.0);
+        }
+      }
+    }
+    // Late replies that arrive while the destination is measured are recorded as success. Only the
+    // replies to the last attempt arrive after the record has been written.
+    assertTrue(lostSlow <= nDestinations, "lost=" + lostSlow);
+    assertTrue(successSlow >= (long) nDestinations * (config.attemptRepeatCnt - 1));
+    // The replies to the last attempt of the last destination are never received.
+    assertTrue(late >= (long) nDestinations * config.attemptRepeatCnt - 1, "late=" + late);
+
+    // The records hold the round trip time of late replies
+    int nSlowLines = 0;
+    long nTimeouts = 0;
+    for (String line : Files.readAllLines(output)) {
+      if ("3".equals(line.split(",")[5])) {
+        nSlowLines++;
+        assertTrue(line.contains(",300.0,300.0"), line);
+      }
+      nTimeouts += line.split("TIMEOUT", -1).length - 1;
+    }
+    assertEquals(nDestinations, nSlowLines);
+    // Replaced timeouts are not counted in the summary
+    assertEquals(nTimeouts, ping.getTimeoutCount());
+  }
+}
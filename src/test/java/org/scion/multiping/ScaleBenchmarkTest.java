@@ -0,0 +1,348 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.scion.multiping.util.Config;
+import org.scion.multiping.util.CsvRecordWriter;
+import org.scion.multiping.util.RecordWriter;
+import org.scion.multiping.util.SimulatedNetwork;
+import org.scion.multiping.util.Util;
+
+/**
+ * Scale benchmark for PingAll and PingRepeat against simulated topologies.<br>
+ * The benchmark is excluded from the default build, run it with "mvn test -P benchmark".
+ *
+ * <p>For every topology size it records wall time, probes per second, peak heap, GC time and
+ * allocated bytes and writes them to a JSON report. If a baseline report is given, the benchmark
+ * fails when a result is worse than the baseline by more than the configured threshold. Settings
+ * are read from system properties, see the "benchmark" profile in pom.xml.
+ */
+@Tag("benchmark")
+class ScaleBenchmarkTest {
+  private static final String SIZES = System.getProperty("benchmark.sizes", "100,1000,10000");
+  private static final int MIN_PATHS = Integer.getInteger("benchmark.minPaths", 1);
+  private static final int MAX_PATHS = Integer.getInteger("benchmark.maxPaths", 200);
+  private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 2);
+  private static final String REPORT =
+      System.getProperty("benchmark.report", "target/benchmark/scale-report.json");
+  private static final String BASELINE = System.getProperty("benchmark.baseline", "");
+  private static final double MAX_SLOWDOWN_PERCENT = getDouble("benchmark.maxSlowdownPercent", 25);
+  private static final double MAX_HEAP_GROWTH_PERCENT =
+      getDouble("benchmark.maxHeapGrowthPercent", 25);
+  private static final double MAX_ALLOC_GROWTH_PERCENT =
+      getDouble("benchmark.maxAllocGrowthPercent", 25);
+
+  @TempDir Path tempDir;
+
+  private boolean print;
+
+  /** Content of the JSON report. */
+  static class Report {
+    String timestamp;
+    String javaVersion;
+    int availableProcessors;
+    long maxHeapMb;
+    List<Result> results = new ArrayList<>();
+  }
+
+  /** Result of one benchmark run. */
+  static class Result {
+    String name;
+    int nAs;
+    long probes;
+    double wallTimeMs;
+    double probesPerSec;
+    double peakHeapMb;
+    long gcTimeMs;
+    long gcCount;
+    double allocatedMb; // -1 if not supported by the JVM
+    double allocationMbPerSec;
+  }
+
+  /** Resource usage measured between start() and stop(). */
+  private static class Measurement {
+    private final List<GarbageCollectorMXBean> gcs = ManagementFactory.getGarbageCollectorMXBeans();
+    private final Map<Long, Long> allocatedBytesByThread = new HashMap<>();
+    private long startNanos;
+    private long startGcTimeMs;
+    private long startGcCount;
+
+    private void start() {
+      System.gc();
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP) {
+          pool.resetPeakUsage();
+        }
+      }
+      startGcTimeMs = getGcTimeMs();
+      startGcCount = getGcCount();
+      allocatedBytesByThread.clear();
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+        for (long id : t.getAllThreadIds()) {
+          allocatedBytesByThread.put(id, t.getThreadAllocatedBytes(id));
+        }
+      }
+      startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stop the measurement. Allocations are only counted for threads that are still alive, so this
+     * should be called before worker threads are stopped.
+     */
+    private Result stop(String name, int nAs, long probes) {
+      Result r = new Result();
+      r.wallTimeMs = (System.nanoTime() - startNanos) / 1_000_000.0;
+      r.name = name;
+      r.nAs = nAs;
+      r.probes = probes;
+      r.probesPerSec = probes / (r.wallTimeMs / 1000);
+      r.gcTimeMs = getGcTimeMs() - startGcTimeMs;
+      r.gcCount = getGcCount() - startGcCount;
+      long peakHeap = 0;
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP) {
+          peakHeap += pool.getPeakUsage().getUsed();
+        }
+      }
+      r.peakHeapMb = toMb(peakHeap);
+      r.allocatedMb = toMb(getAllocatedBytes());
+      r.allocationMbPerSec = r.allocatedMb < 0 ? -1 : r.allocatedMb / (r.wallTimeMs / 1000);
+      return r;
+    }
+
+    private long getAllocatedBytes() {
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+        return -1;
+      }
+      com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+      long total = 0;
+      for (long id : t.getAllThreadIds()) {
+        long bytes = t.getThreadAllocatedBytes(id);
+        if (bytes > 0) {
+          total += bytes - allocatedBytesByThread.getOrDefault(id, 0L);
+        }
+      }
+      return total;
+    }
+
+    private long getGcTimeMs() {
+      return gcs.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private long getGcCount() {
+      return gcs.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+  }
+
+  private static double getDouble(String property, double defaultValue) {
+    String value = System.getProperty(property);
+    return value == null || value.isEmpty() ? defaultValue : Double.parseDouble(value);
+  }
+
+  private static double toMb(long bytes) {
+    return bytes < 0 ? -1 : Util.round(bytes / (1024.0 * 1024.0), 1);
+  }
+
+  private static SimulatedNetwork.Settings createSettings(int nAs) {
+    SimulatedNetwork.Settings settings = new SimulatedNetwork.Settings();
+    settings.nAs = nAs;
+    settings.minPathsPerAs = MIN_PATHS;
+    settings.maxPathsPerAs = MAX_PATHS;
+    // Short latencies, the benchmark measures our overhead, not the network.
+    settings.minLatencyMs = 0.1;
+    settings.maxLatencyMs = 2;
+    settings.jitterMs = 0.1;
+    return settings;
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    print = Util.PRINT;
+    Util.PRINT = false;
+  }
+
+  @AfterEach
+  void afterEach() {
+    Util.PRINT = print;
+  }
+
+  @Test
+  void benchmark() throws IOException {
+    Report report = new Report();
+    report.timestamp = Instant.now().toString();
+    report.javaVersion = System.getProperty("java.version");
+    report.availableProcessors = Runtime.getRuntime().availableProcessors();
+    report.maxHeapMb = (long) toMb(Runtime.getRuntime().maxMemory());
+    for (String size : SIZES.split(",")) {
+      int nAs = Integer.parseInt(size.trim());
+      report.results.add(runPingAll(nAs));
+      report.results.add(runPingRepeat(nAs));
+    }
+    writeReport(report);
+
+    List<String> regressions = checkBaseline(report);
+    if (!regressions.isEmpty()) {
+      fail("Benchmark regressions:\n" + String.join("\n", regressions));
+    }
+  }
+
+  private Result runPingAll(int nAs) throws IOException {
+    try (SimulatedNetwork network = new SimulatedNetwork(createSettings(nAs))) {
+      PingAll pingAll = new PingAll(PingAll.Policy.FASTEST_TR_ASYNC, network.createProvider(), 64);
+      Measurement m = new Measurement();
+      m.start();
+      pingAll.run();
+      return m.stop("PingAll-" + nAs, nAs, network.getSentCount());
+    }
+  }
+
+  private Result runPingRepeat(int nAs) throws IOException {
+    Config config = new Config();
+    config.roundRepeatCnt = ROUNDS;
+    config.roundDelaySec = 0;
+    config.attemptRepeatCnt = 3;
+    config.attemptDelayMs = 0;
+    // Probe all paths of the topology
+    config.maxPathsPerDestination = MAX_PATHS;
+    try (SimulatedNetwork network = new SimulatedNetwork(createSettings(nAs));
+        RecordWriter writer =
+            new CsvRecordWriter(new FileWriter(tempDir.resolve("output.csv").toFile()))) {
+      PingRepeat pingRepeat = new PingRepeat(network.createProvider(), config, writer);
+      Measurement m = new Measurement();
+      m.start();
+      pingRepeat.run(network.getIsdAsEntries());
+      return m.stop("PingRepeat-" + nAs, nAs, network.getSentCount());
+    }
+  }
+
+  private static void writeReport(Report report) throws IOException {
+    Path file = Paths.get(REPORT);
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      gson.toJson(report, out);
+    }
+    for (Result r : report.results) {
+      System.out.println(
+          r.name
+              + ": probes="
+              + r.probes
+              + "  time="
+              + Util.round(r.wallTimeMs, 0)
+              + "ms  probes/s="
+              + Util.round(r.probesPerSec, 0)
+              + "  peakHeap="
+              + r.peakHeapMb
+              + "MB  gc="
+              + r.gcTimeMs
+              + "ms  allocated="
+              + r.allocatedMb
+              + "MB");
+    }
+    System.out.println("Benchmark report written to " + file.toAbsolutePath());
+  }
+
+  /**
+   * @return A description of every result that is worse than the baseline by more than the
+   *     configured threshold.
+   */
+  private static List<String> checkBaseline(Report report) throws IOException {
+    List<String> regressions = new ArrayList<>();
+    if (BASELINE.isEmpty() || !Files.exists(Paths.get(BASELINE))) {
+      System.out.println("No baseline report found, skipping regression check.");
+      return regressions;
+    }
+    Report baseline;
+    try (Reader in = Files.newBufferedReader(Paths.get(BASELINE), StandardCharsets.UTF_8)) {
+      baseline = new Gson().fromJson(in, Report.class);
+    }
+    Map<String, Result> baselineResults = new HashMap<>();
+    for (Result r : baseline.results) {
+      baselineResults.put(r.name, r);
+    }
+    for (Result r : report.results) {
+      Result b = baselineResults.get(r.name);
+      if (b == null) {
+        continue;
+      }
+      check(regressions, r.name, "wall time", r.wallTimeMs, b.wallTimeMs, MAX_SLOWDOWN_PERCENT);
+      check(regressions, r.name, "peak heap", r.peakHeapMb, b.peakHeapMb, MAX_HEAP_GROWTH_PERCENT);
+      if (r.allocatedMb >= 0 && b.allocatedMb >= 0) {
+        check(
+            regressions,
+            r.name,
+            "allocation",
+            r.allocatedMb,
+            b.allocatedMb,
+            MAX_ALLOC_GROWTH_PERCENT);
+      }
+    }
+    return regressions;
+  }
+
+  private static void check(
+      List<String> regressions,
+      String name,
+      String metric,
+      double value,
+      double baseline,
+      double maxGrowthPercent) {
+    if (baseline > 0 && value > baseline * (1 + maxGrowthPercent / 100)) {
+      double growth = Util.round((value / baseline - 1) * 100, 1);
+      regressions.add(
+          name
+              + ": "
+              + metric
+              + " "
+              + Util.round(value, 1)
+              + " vs. "
+              + Util.round(baseline, 1)
+              + " (+"
+              + growth
+              + "%)");
+    }
+  }
+}
@@ -0,0 +1,86 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+
+class AdaptiveTimeoutsTest {
+
+  private static Config createConfig() {
+    Config config = new Config();
+    config.adaptiveTimeout = true;
+    config.attemptTimeoutMs = 1000;
+    config.adaptiveTimeoutMinMs = 10;
+    return config;
+  }
+
+  @Test
+  void testPerPath() {
+    Path pathA = PathHelper.createPaths(1, 2).get(0); // ISD/AS 2
+    Path pathB = PathHelper.createPaths(1, 3).get(0); // ISD/AS 2
+    AdaptiveTimeouts timeouts = new AdaptiveTimeouts(createConfig());
+    assertEquals(1000, timeouts.getTimeoutMs(pathA));
+
+    timeouts.addSample(pathA, 20);
+    assertEquals(60, timeouts.getTimeoutMs(pathA));
+    // No samples for path B: twice the timeout of its destination
+    assertEquals(120, timeouts.getTimeoutMs(pathB));
+
+    timeouts.addSample(pathB, 100);
+    assertEquals(300, timeouts.getTimeoutMs(pathB));
+    assertEquals(60, timeouts.getTimeoutMs(pathA));
+    assertEquals(2, timeouts.getPathCount());
+  }
+
+  @Test
+  void testPerDestination() {
+    Path pathA = PathHelper.createPaths(1, 2).get(0); // ISD/AS 2
+    Path pathB = PathHelper.createPaths(2, 3).get(0); // ISD/AS 3
+    Path pathC = PathHelper.createPaths(1, 3).get(0); // ISD/AS 2
+    AdaptiveTimeouts timeouts = new AdaptiveTimeouts(createConfig());
+    timeouts.addSample(pathA, 200);
+    // Other destination without any reply
+    assertEquals(1000, timeouts.getTimeoutMs(pathB));
+    // Twice the destination timeout, capped by attemptTimeoutMs
+    assertEquals(1000, timeouts.getTimeoutMs(pathC));
+  }
+
+  @Test
+  void testRefreshedPath() {
+    AdaptiveTimeouts timeouts = new AdaptiveTimeouts(createConfig());
+    timeouts.addSample(PathHelper.createPaths(1, 2).get(0), 20);
+    // New raw path, but same destination and path string
+    Path refreshed = PathHelper.createPath(1000, 2, 2, 42, InetAddress.getLoopbackAddress(), 1, 0);
+    assertNotSame(PathInfo.get(PathHelper.createPaths(1, 2).get(0)), PathInfo.get(refreshed));
+    assertEquals(60, timeouts.getTimeoutMs(refreshed));
+    assertEquals(1, timeouts.getPathCount());
+  }
+
+  @Test
+  void testDisabled() {
+    // Enabled by default
+    assertTrue(new Config().adaptiveTimeout);
+    Config config = createConfig();
+    config.adaptiveTimeout = false;
+    Path path = PathHelper.createPaths(1, 2).get(0);
+    AdaptiveTimeouts timeouts = new AdaptiveTimeouts(config);
+    timeouts.addSample(path, 20);
+    assertEquals(1000, timeouts.getTimeoutMs(path));
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AsyncRecordWriterTest {
+
+  private static class ListWriter implements RecordWriter {
+    private final List<Record> written = Collections.synchronizedList(new ArrayList<>());
+    private volatile int nFlushed = 0;
+    private volatile boolean isClosed = false;
+
+    @Override
+    public void write(Record rec) {
+      written.add(rec);
+    }
+
+    @Override
+    public void flush() {
+      nFlushed = written.size();
+    }
+
+    @Override
+    public void close() {
+      isClosed = true;
+    }
+  }
+
+  private static Record createRecord(long isdAs) {
+    return new Record(Instant.now(), null, isdAs, 0);
+  }
+
+  @Test
+  void testFinalFlush() {
+    ListWriter out = new ListWriter();
+    AsyncRecordWriter writer = new AsyncRecordWriter(out, 10, 100, 100_000);
+    for (int i = 0; i < 1000; i++) {
+      writer.write(createRecord(i));
+    }
+    writer.close();
+    writer.close();
+
+    assertEquals(1000, out.written.size());
+    assertEquals(1000, out.nFlushed);
+    assertTrue(out.isClosed);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, out.written.get(i).getIsdAs());
+    }
+    assertEquals(1000, writer.getWrittenCount());
+    assertTrue(writer.getMaxQueueDepth() <= 10);
+    assertEquals(0, writer.getQueueDepth());
+    assertThrows(IllegalStateException.class, () -> writer.write(createRecord(0)));
+  }
+
+  @Test
+  void testFlush() {
+    ListWriter out = new ListWriter();
+    try (AsyncRecordWriter writer = new AsyncRecordWriter(out, 100, 100, 100_000)) {
+      writer.write(createRecord(1));
+      writer.write(createRecord(2));
+      writer.flush();
+      assertEquals(2, out.nFlushed);
+    }
+  }
+
+  @Test
+  void testFlushInterval() throws InterruptedException {
+    CountDownLatch flushed = new CountDownLatch(1);
+    ListWriter out =
+        new ListWriter() {
+          @Override
+          public void flush() {
+            super.flush();
+            flushed.countDown();
+          }
+        };
+    try (AsyncRecordWriter writer = new AsyncRecordWriter(out, 100, 100, 10)) {
+      writer.write(createRecord(1));
+      assertTrue(flushed.await(5, TimeUnit.SECONDS));
+      assertEquals(1, out.nFlushed);
+    }
+  }
+
+  @Test
+  void testFailure() {
+    RecordWriter out =
+        new ListWriter() {
+          @Override
+          public void write(Record rec) {
+            throw new IllegalStateException("disk full");
+          }
+        };
+    AsyncRecordWriter writer = new AsyncRecordWriter(out, 2, 1, 100_000);
+    // Must not block even though nothing can be written.
+    for (int i = 0; i < 100; i++) {
+      try {
+        writer.write(createRecord(i));
+      } catch (IllegalStateException e) {
+        break;
+      }
+    }
+    Exception e = assertThrows(IllegalStateException.class, writer::close);
+    assertEquals("disk full", e.getCause().getMessage());
+  }
+}
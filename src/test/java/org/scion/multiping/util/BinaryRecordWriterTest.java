@@ -0,0 +1,113 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+import org.scion.jpan.Scmp;
+
+class BinaryRecordWriterTest {
+
+  private static List<Record> createRecords() {
+    List<Record> records = new ArrayList<>();
+    Instant time = Instant.parse("2025-03-01T10:15:30.123456789Z");
+    int seqId = 0;
+    for (Path path : PathHelper.createPaths(3, 4)) {
+      Record rec = new Record(time, path, path.getRemoteIsdAs(), 3);
+      rec.isEcho(seqId % 2 == 0);
+      Scmp.EchoMessage msg = Scmp.EchoMessage.create(Scmp.TypeCode.TYPE_129, seqId, seqId, path);
+      msg.assignRequest(msg, 1_234_567 + seqId * 1_000_003L);
+      rec.registerAttempt(0, msg);
+      rec.registerAttempt(2, Record.AttemptState.TIMEOUT);
+      records.add(rec);
+      // Timestamps may go backwards
+      time = time.plusMillis(seqId % 2 == 0 ? 1500 : -700);
+      seqId++;
+    }
+    // More attempts than fit into a byte
+    Path path = PathHelper.createPaths(1, 2).get(0);
+    Record many = new Record(time, path, path.getRemoteIsdAs(), 300);
+    for (int i = 0; i < 300; i++) {
+      many.registerAttempt(i, Record.AttemptState.TIMEOUT);
+    }
+    records.add(many);
+    Record noPath = new Record(time, null, 12345, 0);
+    noPath.setState(Record.State.NO_PATH);
+    records.add(noPath);
+    return records;
+  }
+
+  @Test
+  void testExportCsv() throws IOException {
+    List<Record> records = createRecords();
+    StringWriter csv = new StringWriter();
+    ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    try (RecordWriter csvWriter = new CsvRecordWriter(csv);
+        RecordWriter binaryWriter = new BinaryRecordWriter(binary)) {
+      // Several rounds, later rounds use the path dictionary
+      for (int round = 0; round < 3; round++) {
+        for (Record rec : records) {
+          csvWriter.write(rec);
+          binaryWriter.write(rec);
+        }
+      }
+    }
+
+    StringBuilder exported = new StringBuilder();
+    int n = 0;
+    try (BinaryRecordReader reader =
+        new BinaryRecordReader(new ByteArrayInputStream(binary.toByteArray()))) {
+      BinaryRecordReader.Entry e;
+      while ((e = reader.next()) != null) {
+        exported.append(e.toCsv());
+        n++;
+      }
+    }
+    assertEquals(3 * records.size(), n);
+    assertEquals(csv.toString(), exported.toString());
+    assertTrue(binary.size() < csv.toString().length());
+  }
+
+  @Test
+  void testVarLong() throws IOException {
+    long[] values = {0, 1, -1, 63, -64, 64, 1L << 40, Long.MAX_VALUE, Long.MIN_VALUE};
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    for (long v : values) {
+      BinaryFormat.writeVarLong(out, BinaryFormat.zigZagEncode(v));
+    }
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    for (long v : values) {
+      assertEquals(v, BinaryFormat.zigZagDecode(BinaryFormat.readVarLong(in)));
+    }
+  }
+
+  @Test
+  void testInvalidFile() {
+    byte[] data = "ISD,AS,IP".getBytes();
+    assertThrows(IOException.class, () -> new BinaryRecordReader(new ByteArrayInputStream(data)));
+  }
+}
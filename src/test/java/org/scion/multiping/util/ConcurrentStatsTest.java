@@ -0,0 +1,131 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/** Stress tests for counters and sets that are updated from several threads. */
+class ConcurrentStatsTest {
+  private static final int N_THREADS = 8;
+  private static final int N_ITERATIONS = 100_000;
+
+  /** Run the task on N_THREADS threads that start at the same time. */
+  private static void runConcurrently(IntTask task) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(N_THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < N_THREADS; t++) {
+        int threadId = t;
+        futures.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  task.run(threadId);
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> f : futures) {
+        f.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private interface IntTask {
+    void run(int threadId) throws Exception;
+  }
+
+  @Test
+  void testLongSet() {
+    ConcurrentLongSet set = new ConcurrentLongSet();
+    assertTrue(set.isEmpty());
+    assertTrue(set.add(0));
+    assertFalse(set.add(0));
+    assertTrue(set.add(-1));
+    assertTrue(set.add(Long.MAX_VALUE));
+    assertTrue(set.contains(0));
+    assertTrue(set.contains(-1));
+    assertFalse(set.contains(1));
+    assertEquals(3, set.size());
+
+    Set<Long> visited = new HashSet<>();
+    set.forEach(visited::add);
+    assertEquals(3, visited.size());
+    assertTrue(visited.contains(Long.MAX_VALUE));
+
+    set.clear();
+    assertEquals(0, set.size());
+    assertFalse(set.contains(0));
+  }
+
+  @Test
+  void testStressCounterAndSet() throws Exception {
+    Counter counter = new Counter();
+    ConcurrentLongSet set = new ConcurrentLongSet();
+    Counter nAdded = new Counter();
+    runConcurrently(
+        threadId -> {
+          for (int i = 0; i < N_ITERATIONS; i++) {
+            counter.inc();
+            // Every thread adds the same values, each must be added exactly once.
+            if (set.add(i * 0x1_0000_0001L)) {
+              nAdded.inc();
+            }
+          }
+        });
+    assertEquals((long) N_THREADS * N_ITERATIONS, counter.get());
+    assertEquals(N_ITERATIONS, set.size());
+    assertEquals(N_ITERATIONS, nAdded.get());
+    for (int i = 0; i < N_ITERATIONS; i++) {
+      assertTrue(set.contains(i * 0x1_0000_0001L));
+    }
+    assertEquals((long) N_THREADS * N_ITERATIONS, counter.getAndReset());
+    assertEquals(0, counter.get());
+  }
+
+  @Test
+  void testStressResultSummary() throws Exception {
+    ResultSummary summary = new ResultSummary();
+    runConcurrently(
+        threadId -> {
+          for (int i = 0; i < N_ITERATIONS / 10; i++) {
+            long isdAs = (1L << 48) | i;
+            summary.incIsdAsTried(isdAs);
+            summary.incPathTried();
+            summary.incPathTimeout();
+            summary.incAsTimeout(isdAs);
+            summary.checkTotalMax(isdAs, threadId * 1000 + i);
+          }
+        });
+    int n = N_THREADS * N_ITERATIONS / 10;
+    assertEquals(n, summary.getPathTried());
+    assertEquals(n, summary.getPathTimeouts());
+    assertEquals(n, summary.getAsTimeouts());
+    assertEquals(N_ITERATIONS / 10, summary.getUniqueAsCount());
+  }
+}
@@ -0,0 +1,111 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ICMPTest {
+
+  @AfterEach
+  void afterEach() {
+    ICMP.setEngine(null);
+    ICMP.newRound();
+  }
+
+  /** Replies when the test says so. */
+  private static class ManualTransport implements IcmpEngine.Transport {
+    private final AtomicInteger nSent = new AtomicInteger();
+    private final List<IcmpEngine.Callback> callbacks = new ArrayList<>();
+
+    @Override
+    public synchronized void ping(
+        InetAddress address, int timeoutMs, IcmpEngine.Callback callback) {
+      nSent.incrementAndGet();
+      callbacks.add(callback);
+    }
+
+    synchronized void replyAll(double seconds) {
+      callbacks.forEach(c -> c.onResponse(seconds));
+      callbacks.clear();
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  private static Config createConfig() {
+    Config config = new Config();
+    config.tryICMP = true;
+    return config;
+  }
+
+  @Test
+  void testCacheAndCoalescing() throws Exception {
+    ManualTransport transport = new ManualTransport();
+    ICMP.setEngine(new IcmpEngine(transport));
+    Config config = createConfig();
+    InetAddress router = InetAddress.getByName("193.247.170.170");
+    long cached0 = ICMP.nIcmpCached.get();
+
+    // Concurrent requests share one probe
+    CompletableFuture<String> f1 = ICMP.pingICMPAsync(router, config);
+    CompletableFuture<String> f2 = ICMP.pingICMPAsync(router, config);
+    assertEquals(1, transport.nSent.get());
+    assertFalse(f1.isDone());
+    transport.replyAll(0.0123);
+    assertEquals("12.3ms", f1.get(1, TimeUnit.SECONDS));
+    assertEquals("12.3ms", f2.get(1, TimeUnit.SECONDS));
+
+    // Completed results are reused until the next round
+    assertEquals("12.3ms", ICMP.pingICMP(router, config));
+    assertEquals(1, transport.nSent.get());
+    assertEquals(cached0 + 2, ICMP.nIcmpCached.get());
+
+    ICMP.newRound();
+    CompletableFuture<String> f3 = ICMP.pingICMPAsync(router, config);
+    assertEquals(2, transport.nSent.get());
+    transport.replyAll(0.02);
+    assertEquals("20.0ms", f3.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testCacheDisabled() throws Exception {
+    ManualTransport transport = new ManualTransport();
+    ICMP.setEngine(new IcmpEngine(transport));
+    Config config = createConfig();
+    config.icmpCache = false;
+    InetAddress router = InetAddress.getByName("193.247.170.170");
+    ICMP.pingICMPAsync(router, config);
+    ICMP.pingICMPAsync(router, config);
+    assertEquals(2, transport.nSent.get());
+    transport.replyAll(0.01);
+  }
+
+  @Test
+  void testPrivateAndOff() throws Exception {
+    Config config = createConfig();
+    assertEquals("N/A", ICMP.pingICMP(InetAddress.getByName("192.168.1.1"), config));
+    config.tryICMP = false;
+    assertEquals("OFF", ICMP.pingICMP(InetAddress.getByName("193.247.170.170"), config));
+  }
+}
@@ -0,0 +1,140 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class IcmpEngineTest {
+
+  /** Replies after a delay that depends on the last byte of the address. 0 = no reply. */
+  private static class DelayedTransport implements IcmpEngine.Transport {
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+    private final AtomicInteger nSent = new AtomicInteger();
+    private final AtomicInteger nInFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger nCancelled = new AtomicInteger();
+
+    @Override
+    public void ping(InetAddress address, int timeoutMs, IcmpEngine.Callback callback) {
+      int delayMs = address.getAddress()[3];
+      int attempt = nSent.incrementAndGet();
+      if (delayMs == 0) {
+        return;
+      }
+      maxInFlight.accumulateAndGet(nInFlight.incrementAndGet(), Math::max);
+      // Every other reply is 1ms slower
+      int actualMs = delayMs + (attempt % 2);
+      executor.schedule(
+          () -> {
+            nInFlight.decrementAndGet();
+            callback.onResponse(actualMs / 1000.0);
+          },
+          actualMs,
+          TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void cancel(IcmpEngine.Callback callback) {
+      nCancelled.incrementAndGet();
+    }
+
+    @Override
+    public void close() {
+      executor.shutdownNow();
+    }
+  }
+
+  private static InetAddress address(int lastByte) throws UnknownHostException {
+    return InetAddress.getByAddress(new byte[] {8, 8, 8, (byte) lastByte});
+  }
+
+  @Test
+  void testConcurrent() throws Exception {
+    DelayedTransport transport = new DelayedTransport();
+    try (IcmpEngine engine = new IcmpEngine(transport)) {
+      List<CompletableFuture<IcmpEngine.Reply>> futures = new ArrayList<>();
+      long start = System.nanoTime();
+      for (int i = 0; i < 50; i++) {
+        futures.add(engine.ping(address(100), 1, 1000));
+      }
+      for (CompletableFuture<IcmpEngine.Reply> f : futures) {
+        IcmpEngine.Reply reply = f.get(5, TimeUnit.SECONDS);
+        assertTrue(reply.isSuccess());
+        assertTrue(reply.getMs() >= 100 && reply.getMs() <= 101, reply.toString());
+      }
+      // All requests were in flight at the same time
+      assertEquals(50, transport.maxInFlight.get());
+      assertEquals(0, transport.nCancelled.get());
+      assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+    }
+  }
+
+  @Test
+  void testRepeat() throws Exception {
+    DelayedTransport transport = new DelayedTransport();
+    try (IcmpEngine engine = new IcmpEngine(transport)) {
+      IcmpEngine.Reply reply = engine.ping(address(20), 4, 1000).get(5, TimeUnit.SECONDS);
+      assertEquals(4, transport.nSent.get());
+      // Requests are sent one after the other, the fastest reply is reported.
+      assertEquals(1, transport.maxInFlight.get());
+      assertEquals(20, reply.getMs(), 0.001);
+      assertEquals("20.0ms", reply.toString());
+    }
+  }
+
+  @Test
+  void testTimeout() throws Exception {
+    DelayedTransport transport = new DelayedTransport();
+    try (IcmpEngine engine = new IcmpEngine(transport)) {
+      long start = System.nanoTime();
+      IcmpEngine.Reply reply = engine.ping(address(0), 2, 50).get(5, TimeUnit.SECONDS);
+      long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      assertTrue(reply.isTimeout());
+      assertEquals("TIMEOUT", reply.toString());
+      assertEquals(2, transport.nSent.get());
+      // The transport forgets requests that timed out
+      assertEquals(2, transport.nCancelled.get());
+      assertTrue(durationMs >= 100 && durationMs < 1000, "duration=" + durationMs);
+    }
+  }
+
+  @Test
+  void testError() throws Exception {
+    IcmpEngine.Transport failing =
+        new IcmpEngine.Transport() {
+          @Override
+          public void ping(InetAddress address, int timeoutMs, IcmpEngine.Callback callback) {
+            throw new IllegalStateException("No permission");
+          }
+
+          @Override
+          public void close() {}
+        };
+    try (IcmpEngine engine = new IcmpEngine(failing)) {
+      IcmpEngine.Reply reply = engine.ping(address(20), 1, 1000).get(5, TimeUnit.SECONDS);
+      assertEquals("ERROR", reply.toString());
+    }
+  }
+}
@@ -0,0 +1,48 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class InFlightTableTest {
+
+  @Test
+  void testPutRemove() {
+    InFlightTable<String> table = new InFlightTable<>();
+    assertNull(table.put(5, "a", 1));
+    assertNull(table.put(6, "b", 2));
+    assertEquals(2, table.size());
+    assertEquals("a", table.get(5));
+    assertEquals(2, table.getTag(6));
+    assertEquals("a", table.remove(5));
+    assertNull(table.remove(5));
+    assertEquals(1, table.size());
+  }
+
+  @Test
+  void testWrapAround() {
+    InFlightTable<String> table = new InFlightTable<>();
+    assertNull(table.put(65535, "a", 0));
+    // The response carries only the lower 16 bit of the sequence ID
+    assertEquals("a", table.get(65535 + 65536));
+    assertEquals("a", table.put(65536 + 65535, "b", 1));
+    assertEquals(1, table.getEvictedCount());
+    assertEquals(1, table.size());
+    assertEquals("b", table.remove(65535));
+    assertEquals(0, table.size());
+  }
+}
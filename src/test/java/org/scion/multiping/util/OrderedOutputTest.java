@@ -0,0 +1,71 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class OrderedOutputTest {
+
+  @Test
+  void testOrder() {
+    List<String> lines = new ArrayList<>();
+    OrderedOutput output = new OrderedOutput();
+    CompletableFuture<String> slow = new CompletableFuture<>();
+    CompletableFuture<String> fast = new CompletableFuture<>();
+
+    output.submit(() -> lines.add("first"));
+    assertEquals(Arrays.asList("first"), lines);
+    output.submit(slow, s -> lines.add("second " + s));
+    output.submit(fast, s -> lines.add("third " + s));
+    output.submit(() -> lines.add("fourth"));
+    assertEquals(3, output.size());
+
+    // Completed inputs wait for their predecessors
+    fast.complete("fast");
+    output.drain();
+    assertEquals(1, lines.size());
+
+    slow.complete("slow");
+    output.drain();
+    assertEquals(Arrays.asList("first", "second slow", "third fast", "fourth"), lines);
+    assertEquals(0, output.size());
+  }
+
+  @Test
+  void testMaxPending() {
+    List<Integer> lines = new ArrayList<>();
+    OrderedOutput output = new OrderedOutput(2);
+    List<CompletableFuture<Integer>> inputs = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      inputs.add(new CompletableFuture<>());
+    }
+    output.submit(inputs.get(0), lines::add);
+    output.submit(inputs.get(1), lines::add);
+    // The third submit has to wait for the first input.
+    new Thread(() -> inputs.get(0).complete(0)).start();
+    output.submit(inputs.get(2), lines::add);
+    assertEquals(Arrays.asList(0), lines);
+
+    inputs.get(2).complete(2);
+    inputs.get(1).complete(1);
+    output.flush();
+    assertEquals(Arrays.asList(0, 1, 2), lines);
+  }
+}
@@ -0,0 +1,140 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.PathHelper;
+
+class PathCacheTest {
+
+  private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 12345);
+
+  @Test
+  void testExpiry() {
+    AtomicLong now = new AtomicLong(1_000_000);
+    AtomicInteger nLookups = new AtomicInteger();
+    // Paths expire at 2_000_000ms. Stop serving 100ms before, refresh 200ms before.
+    PathCache cache =
+        new PathCache(
+            (isdAs, addr) -> {
+              nLookups.incrementAndGet();
+              return PathHelper.createPaths(3, 2, 2_000);
+            },
+            now::get,
+            100,
+            200);
+
+    assertEquals(3, cache.getPaths(1, ADDRESS).size());
+    assertEquals(3, cache.getPaths(1, ADDRESS).size());
+    assertEquals(1, nLookups.get());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    // Different destination
+    cache.getPaths(2, ADDRESS);
+    assertEquals(2, nLookups.get());
+
+    // Close to expiry
+    now.set(1_999_950);
+    cache.getPaths(1, ADDRESS);
+    assertEquals(3, nLookups.get());
+    assertEquals(3, cache.getMissCount());
+  }
+
+  @Test
+  void testBackgroundRefresh() throws InterruptedException {
+    AtomicLong now = new AtomicLong(1_000_000);
+    AtomicInteger nLookups = new AtomicInteger();
+    PathCache cache =
+        new PathCache(
+            (isdAs, addr) -> {
+              nLookups.incrementAndGet();
+              return PathHelper.createPaths(3, 2, 2_000);
+            },
+            now::get,
+            100,
+            200);
+    cache.getPaths(1, ADDRESS);
+
+    // Within the refresh window: served from cache and refreshed in the background
+    now.set(1_999_850);
+    assertEquals(3, cache.getPaths(1, ADDRESS).size());
+    for (int i = 0; i < 100 && nLookups.get() < 2; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(2, nLookups.get());
+    assertEquals(1, cache.getRefreshCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  void testRefreshWithSameExpiry() throws InterruptedException {
+    AtomicLong now = new AtomicLong(1_000_000);
+    AtomicInteger nLookups = new AtomicInteger();
+    // The path service keeps returning paths with the same expiry.
+    PathCache cache =
+        new PathCache(
+            (isdAs, addr) -> {
+              nLookups.incrementAndGet();
+              return PathHelper.createPaths(3, 2, 2_000);
+            },
+            now::get,
+            100,
+            200);
+    cache.getPaths(1, ADDRESS);
+
+    now.set(1_999_850);
+    cache.getPaths(1, ADDRESS);
+    for (int i = 0; i < 100 && cache.getRefreshCount() < 1; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, cache.getRefreshCount());
+
+    // The refresh did not extend the expiry: no further refreshes
+    for (int i = 0; i < 10; i++) {
+      now.addAndGet(1);
+      assertEquals(3, cache.getPaths(1, ADDRESS).size());
+    }
+    Thread.sleep(50);
+    assertEquals(1, cache.getRefreshCount());
+    assertEquals(2, nLookups.get());
+    assertEquals(1, cache.getMissCount());
+
+    // Expired: looked up again
+    now.set(1_999_950);
+    cache.getPaths(1, ADDRESS);
+    assertEquals(3, nLookups.get());
+  }
+
+  @Test
+  void testNoExpiration() {
+    AtomicInteger nLookups = new AtomicInteger();
+    PathCache cache =
+        new PathCache(
+            (isdAs, addr) -> {
+              nLookups.incrementAndGet();
+              return PathHelper.createPaths(3);
+            });
+    cache.getPaths(1, ADDRESS);
+    cache.getPaths(1, ADDRESS);
+    assertEquals(2, nLookups.get());
+    assertEquals(0, cache.getHitCount());
+  }
+}
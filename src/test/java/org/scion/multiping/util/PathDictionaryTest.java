@@ -0,0 +1,45 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+
+class PathDictionaryTest {
+
+  @Test
+  void testStableIds() {
+    PathDictionary dict = new PathDictionary();
+    PathDictionary.Entry noPath = dict.get((Path) null);
+    assertEquals(0, noPath.getId());
+    assertEquals("[]", noPath.getPath());
+    assertEquals(0, noPath.getHopCount());
+
+    PathDictionary.Entry e1 = dict.add("[1>2 3>4]", 2);
+    assertEquals(1, e1.getId());
+    assertSame(e1, dict.get(1));
+    assertNull(dict.get(2));
+
+    Path path = PathHelper.createPaths(1, 3).get(0);
+    PathDictionary.Entry e2 = dict.get(path);
+    assertEquals(2, e2.getId());
+    assertEquals(3, e2.getHopCount());
+    // Same path, different instance
+    assertSame(e2, dict.get(PathHelper.createPaths(1, 3).get(0)));
+    assertEquals(3, dict.size());
+  }
+}
@@ -0,0 +1,46 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+import org.scion.jpan.ScionUtil;
+
+class PathInfoTest {
+
+  @Test
+  void testCache() {
+    Path path = PathHelper.createPaths(1, 4).get(0);
+    PathInfo info = PathInfo.get(path);
+    assertEquals(4, info.getHopCount());
+    assertEquals(ScionUtil.toStringPath(path.getMetadata()), info.getPathString());
+    assertEquals(path.getMetadata().getInterfacesList().size(), info.getInterfaces().size());
+
+    // Same raw path, different instance
+    long hits0 = PathInfo.getHitCount();
+    long misses0 = PathInfo.getMissCount();
+    assertSame(info, PathInfo.get(PathHelper.createPaths(1, 4).get(0)));
+    assertEquals(hits0 + 1, PathInfo.getHitCount());
+    assertEquals(misses0, PathInfo.getMissCount());
+
+    // Different raw path
+    PathInfo info2 = PathInfo.get(PathHelper.createPaths(1, 2).get(0));
+    assertNotSame(info, info2);
+    assertEquals(2, info2.getHopCount());
+    assertTrue(PathInfo.getHitRate() > 0);
+  }
+}
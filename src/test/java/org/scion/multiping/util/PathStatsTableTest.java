@@ -0,0 +1,58 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+import org.scion.jpan.Scmp;
+
+class PathStatsTableTest {
+
+  private static Record createRecord(Path path, boolean isAnswered) {
+    Record rec = new Record(Instant.now(), path, path.getRemoteIsdAs(), 2);
+    for (int i = 0; i < 2; i++) {
+      if (isAnswered) {
+        Scmp.EchoMessage msg = Scmp.EchoMessage.create(Scmp.TypeCode.TYPE_129, i, i, path);
+        msg.assignRequest(msg, 2_000_000);
+        rec.registerAttempt(i, msg);
+      } else {
+        rec.registerAttempt(i, Record.AttemptState.TIMEOUT);
+      }
+    }
+    return rec;
+  }
+
+  @Test
+  void testLostRoundsShareRow() {
+    Path path = PathHelper.createPaths(1, 3).get(0);
+    PathStatsTable table = new PathStatsTable(new double[] {50});
+    // A round without any reply has no remote IP.
+    table.add(createRecord(path, false));
+    table.add(createRecord(path, true));
+    table.add(createRecord(path, false));
+    table.addLate(path.getRemoteIsdAs(), null, PathInfo.get(path), 3.0);
+
+    assertEquals(1, table.size());
+    PathStatsTable.Entry e = table.getEntries().iterator().next();
+    assertEquals(path.getRemoteAddress().getHostAddress(), e.getRemoteIP());
+    assertEquals(6, e.getAttemptCount());
+    assertEquals(4, e.getLostCount());
+    assertEquals(1, e.getLateCount());
+    assertEquals(2.0, e.getLatencyMs().getMin(), 0.01);
+  }
+}
@@ -0,0 +1,46 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ProbePacerTest {
+
+  @Test
+  void testUnlimited() {
+    ProbePacer pacer = ProbePacer.unlimited();
+    for (int i = 0; i < 1000; i++) {
+      pacer.acquire();
+    }
+    assertEquals(1000, pacer.getSentCount());
+    assertEquals(0, pacer.getMaxDelayMs());
+  }
+
+  @Test
+  void testRate() {
+    // 200 pps with a burst of 5: the first 5 probes are immediate, the next 20 take >= 100ms.
+    ProbePacer pacer = new ProbePacer(200, 5);
+    long start = System.nanoTime();
+    for (int i = 0; i < 25; i++) {
+      pacer.acquire();
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    assertTrue(millis >= 95, "Took only " + millis + "ms");
+    assertTrue(pacer.getAchievedRate() <= 260, "rate=" + pacer.getAchievedRate());
+    assertTrue(pacer.getMaxDelayMs() > 0);
+  }
+}
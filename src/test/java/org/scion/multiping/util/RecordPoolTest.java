@@ -0,0 +1,120 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+import org.scion.jpan.Scmp;
+
+class RecordPoolTest {
+
+  /** Discards records, like a writer that has written them. */
+  private static class ReleasingWriter implements RecordWriter {
+    private long n = 0;
+
+    @Override
+    public void write(Record rec) {
+      n += rec.getAttemptCount();
+      rec.release();
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+  }
+
+  private static Scmp.EchoMessage createReply(Path path) {
+    Scmp.EchoMessage msg = Scmp.EchoMessage.create(Scmp.TypeCode.TYPE_129, 1, 1, path);
+    msg.assignRequest(msg, 1_234_567);
+    return msg;
+  }
+
+  @Test
+  void testReuse() {
+    RecordPool pool = new RecordPool(10);
+    Path path = PathHelper.createPaths(1, 3).get(0);
+    Record rec = pool.startMeasurement(path, 3);
+    int generation = rec.getGeneration();
+    assertTrue(rec.registerAttempt(0, createReply(path)));
+    assertFalse(rec.registerAttempt(0, Record.AttemptState.TIMEOUT));
+    assertTrue(rec.registerAttempt(1, Record.AttemptState.TIMEOUT));
+    assertEquals(1235, rec.getAttemptMicros(0));
+    assertEquals(1.235, rec.getAttemptMs(0));
+    assertNull(rec.getAttemptState(2));
+    rec.finishMeasurement(new ReleasingWriter());
+    assertTrue(rec.isFinished());
+    assertEquals(1, pool.getFreeCount());
+
+    Record rec2 = pool.startMeasurement(path, 5);
+    assertSame(rec, rec2);
+    assertNotEquals(generation, rec2.getGeneration());
+    assertFalse(rec2.isFinished());
+    assertEquals(5, rec2.getAttemptCount());
+    for (int i = 0; i < 5; i++) {
+      assertNull(rec2.getAttemptState(i));
+    }
+    assertEquals(Record.State.SUCCESS, rec2.getState());
+    assertNull(rec2.getRemoteAddress());
+    assertEquals(1, pool.getCreatedCount());
+  }
+
+  @Test
+  void testAllocationBudget() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    RecordPool pool = new RecordPool(10);
+    Path path = PathHelper.createPaths(1, 3).get(0);
+    Scmp.EchoMessage reply = createReply(path);
+    ReleasingWriter writer = new ReleasingWriter();
+
+    int nWarmup = 20_000;
+    int n = 100_000;
+    for (int i = 0; i < nWarmup; i++) {
+      measure(pool, path, reply, writer);
+    }
+    long threadId = Thread.currentThread().getId();
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < n; i++) {
+      measure(pool, path, reply, writer);
+    }
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+    // An unpooled record with its attempts takes more than 100 bytes.
+    assertTrue(allocated < n, "Allocated " + allocated + " bytes for " + n + " records");
+    assertEquals(1, pool.getCreatedCount());
+    assertEquals(5L * (nWarmup + n), writer.n);
+  }
+
+  private static void measure(
+      RecordPool pool, Path path, Scmp.EchoMessage reply, RecordWriter writer) {
+    Record rec = pool.startMeasurement(path, 5);
+    rec.isEcho(true);
+    rec.registerAttempt(0, reply);
+    rec.registerAttempt(1, Record.AttemptState.TIMEOUT);
+    rec.registerAttempt(2, reply);
+    rec.finishMeasurement(writer);
+  }
+}
@@ -0,0 +1,124 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+import org.scion.jpan.Scmp;
+
+class ResponderStatsTest {
+
+  private static Scmp.EchoMessage request(Path path, int seq) {
+    return Scmp.EchoMessage.createRequest(seq, path, ByteBuffer.allocate(0));
+  }
+
+  @Test
+  void testCounts() {
+    Path pathA = PathHelper.createPaths(1, 1).get(0); // ISD/AS 2
+    Path pathB = PathHelper.createPaths(2, 2).get(0); // ISD/AS 3
+    ResponderStats stats = new ResponderStats();
+    for (int i = 0; i < 10; i++) {
+      assertTrue(stats.onRequest(request(pathA, i)));
+    }
+    for (int i = 0; i < 5; i++) {
+      assertTrue(stats.onRequest(request(pathB, i)));
+    }
+    stats.onError(request(pathB, 0));
+
+    assertEquals(15, stats.getRequestCount());
+    assertEquals(1, stats.getErrorCount());
+    assertEquals(2, stats.getSourceCount());
+    assertEquals(2, stats.getPathCount());
+    assertEquals(10, stats.getRequestCount(pathA.getRemoteIsdAs()));
+    assertEquals(5, stats.getRequestCount(pathB.getRemoteIsdAs()));
+    assertEquals(0, stats.getRequestCount(12345));
+
+    String line = stats.getSummaryLine();
+    assertTrue(line.startsWith("requests=15 "), line);
+    assertTrue(line.contains("errors=1 "), line);
+    assertTrue(line.endsWith("sources=2  paths=2"), line);
+    stats.printDetails();
+  }
+
+  @Test
+  void testAggregate() {
+    Path pathA = PathHelper.createPaths(1, 1).get(0); // ISD/AS 2
+    Path pathB = PathHelper.createPaths(2, 2).get(0); // ISD/AS 3
+    ResponderStats worker1 = new ResponderStats();
+    ResponderStats worker2 = new ResponderStats();
+    worker1.onRequest(request(pathA, 0));
+    worker1.onRequest(request(pathB, 0));
+    worker2.onRequest(request(pathB, 1));
+    worker2.onError(request(pathB, 1));
+
+    ResponderStats total = new ResponderStats();
+    total.add(worker1);
+    total.add(worker2);
+    assertEquals(3, total.getRequestCount());
+    assertEquals(1, total.getErrorCount());
+    assertEquals(2, total.getSourceCount());
+    assertEquals(2, total.getPathCount());
+    assertEquals(2, total.getRequestCount(pathB.getRemoteIsdAs()));
+    // Workers are not modified
+    assertEquals(2, worker1.getRequestCount());
+    assertEquals(1, worker2.getRequestCount());
+
+    total.clear();
+    assertEquals(0, total.getRequestCount());
+    assertEquals(0, total.getSourceCount());
+    assertEquals(0, total.getPathCount());
+    total.add(worker2);
+    assertEquals(1, total.getRequestCount());
+  }
+
+  @Test
+  void testConcurrent() throws Exception {
+    int nThreads = 4;
+    int nRequests = 50_000;
+    List<Path> paths = PathHelper.createPaths(3, 2);
+    ResponderStats stats = new ResponderStats();
+    ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < nThreads; t++) {
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (int i = 0; i < nRequests; i++) {
+                    stats.onRequest(request(paths.get(i % paths.size()), i));
+                  }
+                }));
+      }
+      for (Future<?> f : futures) {
+        f.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(nThreads * nRequests, stats.getRequestCount());
+    assertEquals(nThreads * nRequests, stats.getRequestCount(paths.get(0).getRemoteIsdAs()));
+    // Identical raw paths are counted as one path
+    assertEquals(1, stats.getPathCount());
+  }
+}
@@ -0,0 +1,110 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RollingRecordWriterTest {
+
+  @TempDir Path tempDir;
+
+  private static Record createRecord(Instant time) {
+    Record rec = new Record(time, null, 12345, 0);
+    rec.setState(Record.State.NO_PATH);
+    return rec;
+  }
+
+  private List<String> listFiles() throws IOException {
+    try (Stream<Path> files = Files.list(tempDir)) {
+      return files.map(p -> p.getFileName().toString()).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static List<String> readGzip(Path file) throws IOException {
+    try (BufferedReader in =
+        new BufferedReader(
+            new InputStreamReader(new GZIPInputStream(Files.newInputStream(file))))) {
+      return in.lines().collect(Collectors.toList());
+    }
+  }
+
+  @Test
+  void testRotateByRounds() throws IOException {
+    Path output = tempDir.resolve("output.csv");
+    Instant time = Instant.parse("2025-03-01T10:00:00Z");
+    try (RollingRecordWriter writer =
+        new RollingRecordWriter(output, Config.OUTPUT_CSV, true, 2, 0, 0)) {
+      for (int round = 0; round < 5; round++) {
+        for (int i = 0; i < 3; i++) {
+          writer.write(createRecord(time.plusSeconds(round * 60L + i)));
+        }
+        writer.endRound();
+        if (round == 0) {
+          // The current segment is still being written
+          assertEquals(1, listFiles().size());
+          assertTrue(listFiles().get(0).endsWith(".partial"));
+        }
+      }
+    }
+
+    assertEquals(
+        "[output-00001.csv.gz, output-00002.csv.gz, output-00003.csv.gz, output-manifest.csv]",
+        listFiles().toString());
+    assertEquals(6, readGzip(tempDir.resolve("output-00001.csv.gz")).size());
+    assertEquals(3, readGzip(tempDir.resolve("output-00003.csv.gz")).size());
+    assertTrue(readGzip(tempDir.resolve("output-00002.csv.gz")).get(0).contains(",NO_PATH,"));
+
+    List<String> manifest = Files.readAllLines(tempDir.resolve("output-manifest.csv"));
+    assertEquals(4, manifest.size());
+    assertTrue(
+        manifest
+            .get(1)
+            .startsWith("output-00001.csv.gz,2025-03-01T10:00:00Z,2025-03-01T10:01:02Z,6,"),
+        manifest.get(1));
+    assertTrue(
+        manifest
+            .get(3)
+            .startsWith("output-00003.csv.gz,2025-03-01T10:04:00Z,2025-03-01T10:04:02Z,3,"),
+        manifest.get(3));
+  }
+
+  @Test
+  void testRotateBySize() throws IOException {
+    Path output = tempDir.resolve("output.bin");
+    try (RollingRecordWriter writer =
+        new RollingRecordWriter(output, Config.OUTPUT_BINARY, false, 0, 0, 1)) {
+      for (int i = 0; i < 3; i++) {
+        writer.write(createRecord(Instant.now()));
+        writer.flush();
+      }
+    }
+    // With a size limit of 1 byte, every flush completes a segment
+    assertEquals(
+        "[output-00001.bin, output-00002.bin, output-00003.bin, output-manifest.csv]",
+        listFiles().toString());
+  }
+}
@@ -0,0 +1,88 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class RttEstimatorTest {
+
+  @Test
+  void testFirstSample() {
+    RttEstimator e = new RttEstimator(1000, 10, 1000);
+    assertFalse(e.hasSamples());
+    assertEquals(1000, e.getTimeoutMs());
+
+    e.addSample(20);
+    assertTrue(e.hasSamples());
+    assertEquals(20, e.getSrttMs());
+    assertEquals(10, e.getRttVarMs());
+    // SRTT + 4 * RTTVAR
+    assertEquals(60, e.getTimeoutMs());
+  }
+
+  @Test
+  void testSmoothing() {
+    RttEstimator e = new RttEstimator(1000, 0, 1000);
+    e.addSample(20);
+    e.addSample(28);
+    // RTTVAR = 3/4 * 10 + 1/4 * |20 - 28|, SRTT = 7/8 * 20 + 1/8 * 28
+    assertEquals(9.5, e.getRttVarMs(), 1e-9);
+    assertEquals(21, e.getSrttMs(), 1e-9);
+    assertEquals(21 + 4 * 9.5, e.getTimeoutMs(), 1e-9);
+    assertEquals(2, e.getSampleCount());
+  }
+
+  @Test
+  void testConverges() {
+    RttEstimator e = new RttEstimator(1000, 0, 1000);
+    for (int i = 0; i < 100; i++) {
+      e.addSample(50);
+    }
+    assertEquals(50, e.getSrttMs(), 1e-6);
+    assertEquals(0, e.getRttVarMs(), 1e-3);
+    // RTTVAR decays to 0, the timeout is at least 2 * SRTT.
+    assertEquals(100, e.getTimeoutMs(), 1e-3);
+  }
+
+  @Test
+  void testSrttFloor() {
+    RttEstimator e = new RttEstimator(1000, 200, 1000);
+    for (int i = 0; i < 100; i++) {
+      e.addSample(300);
+    }
+    // A slightly slower reply is not declared lost.
+    assertEquals(600, e.getTimeoutMs(), 1e-3);
+    e.addSample(310);
+    assertTrue(e.getTimeoutMs() > 310);
+  }
+
+  @Test
+  void testFloorAndCeiling() {
+    RttEstimator e = new RttEstimator(5000, 200, 1000);
+    assertEquals(1000, e.getTimeoutMs());
+    e.addSample(1);
+    assertEquals(200, e.getTimeoutMs());
+    e.addSample(10_000);
+    assertEquals(1000, e.getTimeoutMs());
+  }
+
+  @Test
+  void testFloorAboveCeiling() {
+    RttEstimator e = new RttEstimator(20, 200, 20);
+    e.addSample(1);
+    assertEquals(20, e.getTimeoutMs());
+  }
+}
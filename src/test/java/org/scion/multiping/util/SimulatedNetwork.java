@@ -0,0 +1,372 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.scion.jpan.Path;
+import org.scion.jpan.PathHelper;
+import org.scion.jpan.Scmp;
+import org.scion.jpan.ScmpSenderAsync;
+
+/**
+ * Simulated SCION network for end-to-end tests without network access.<br>
+ * The network consists of "nAs" synthetic ASes, each with a random number of paths with random hop
+ * counts and base latencies. Requests are answered by the simulated senders of {@link
+ * #createProvider()}:
+ *
+ * <p>- Async senders deliver responses on a timer thread after the sampled latency (base latency
+ * plus exponentially distributed jitter). Requests can be lost (reported with {@link
+ * ScmpSenderAsync.ResponseHandler#onTimeout} after "timeoutMs"), delayed by "reorderDelayMs" so
+ * that they overtake each other, or answered twice.<br>
+ * - Sync senders return immediately, the sampled latency is only reported in the response.
+ *
+ * <p>Paths expire after "pathLifetimeSec". Path lookups then return new paths with a different raw
+ * path. Requests that are sent on an expired path are lost.
+ *
+ * <p>The topology is determined by "seed". Loss, latency, etc. are random but reproducible as long
+ * as requests are sent in the same order.
+ */
+public class SimulatedNetwork implements AutoCloseable {
+  public static final long LOCAL_ISD_AS = (1L << 48) | 0xff00_0000_0001L;
+
+  /** Parameters of the simulated network. */
+  public static class Settings {
+    public int nAs = 1000;
+    public int minPathsPerAs = 1;
+    public int maxPathsPerAs = 10;
+    public int minHops = 2;
+    public int maxHops = 10;
+    public double minLatencyMs = 5;
+    public double maxLatencyMs = 300;
+    public double jitterMs = 2; // mean of the exponentially distributed jitter
+    public double lossPercent = 0;
+    public double reorderPercent = 0;
+    public double reorderDelayMs = 20;
+    public double duplicatePercent = 0;
+    public long pathLifetimeSec = 6 * 3600;
+    public int timeoutMs = 1000;
+    public long seed = 0;
+  }
+
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  private final Settings settings;
+  private final LongSupplier clockMillis;
+  private final List<ParseAssignments.HostEntry> entries = new ArrayList<>();
+  private final Map<Long, List<PathModel>> pathsByAs = new HashMap<>(); // read-only after init
+  private final Map<ByteBuffer, PathModel> pathsByRaw = new ConcurrentHashMap<>();
+  private final Random random;
+  private final AtomicInteger sequenceId = new AtomicInteger();
+  private final ScheduledExecutorService timer =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread t = new Thread(r, "simulated-network");
+            t.setDaemon(true);
+            return t;
+          });
+
+  private final Counter nSent = new Counter();
+  private final Counter nResponses = new Counter();
+  private final Counter nLost = new Counter();
+  private final Counter nExpired = new Counter();
+  private final Counter nReordered = new Counter();
+  private final Counter nDuplicates = new Counter();
+
+  private static class PathModel {
+    private final long isdAs;
+    private final long id;
+    private final int nHops;
+    private final double latencyMs;
+    private Path path; // guarded by this
+    private int generation = 0; // guarded by this
+
+    private PathModel(long isdAs, long id, int nHops, double latencyMs) {
+      this.isdAs = isdAs;
+      this.id = id;
+      this.nHops = nHops;
+      this.latencyMs = latencyMs;
+    }
+  }
+
+  public SimulatedNetwork(Settings settings) {
+    this(settings, System::currentTimeMillis);
+  }
+
+  SimulatedNetwork(Settings settings, LongSupplier clockMillis) {
+    this.settings = settings;
+    this.clockMillis = clockMillis;
+    Random topology = new Random(settings.seed);
+    for (int i = 0; i < settings.nAs; i++) {
+      long isdAs = ((long) (1 + i / 1000) << 48) | (0xff00_0000_1000L + i);
+      entries.add(new ParseAssignments.HostEntry(isdAs, "Simulated AS " + i));
+      int nPaths = randomInt(topology, settings.minPathsPerAs, settings.maxPathsPerAs);
+      List<PathModel> paths = new ArrayList<>();
+      for (int p = 0; p < nPaths; p++) {
+        int nHops = randomInt(topology, settings.minHops, settings.maxHops);
+        double latencyMs =
+            settings.minLatencyMs
+                + topology.nextDouble() * (settings.maxLatencyMs - settings.minLatencyMs);
+        paths.add(new PathModel(isdAs, ((long) i << 32) | ((long) p << 16), nHops, latencyMs));
+      }
+      pathsByAs.put(isdAs, paths);
+    }
+    this.random = new Random(topology.nextLong());
+  }
+
+  private static int randomInt(Random random, int min, int max) {
+    return min + random.nextInt(max - min + 1);
+  }
+
+  /**
+   * @return A provider that uses this network for path lookups and for all requests.
+   */
+  public ScionProvider createProvider() {
+    return ScionProvider.createSync(
+        SimulatedSync::new,
+        SimulatedAsync::new,
+        this::getIsdAsEntries,
+        () -> LOCAL_ISD_AS,
+        this::getPaths);
+  }
+
+  public List<ParseAssignments.HostEntry> getIsdAsEntries() {
+    return new ArrayList<>(entries);
+  }
+
+  /**
+   * @param isdAs destination ISD/AS
+   * @param address destination address
+   * @return The current paths to the ISD/AS. Expired paths are replaced by new paths.
+   */
+  public List<Path> getPaths(long isdAs, InetSocketAddress address) {
+    List<PathModel> models = pathsByAs.getOrDefault(isdAs, Collections.emptyList());
+    List<Path> paths = new ArrayList<>(models.size());
+    for (PathModel model : models) {
+      paths.add(getPath(model, address));
+    }
+    return paths;
+  }
+
+  private Path getPath(PathModel model, InetSocketAddress address) {
+    synchronized (model) {
+      if (model.path == null || isExpired(model.path)) {
+        long expiration = clockMillis.getAsLong() / 1000 + settings.pathLifetimeSec;
+        long pathId = model.id | (model.generation++ & 0xFFFF);
+        InetAddress ip = address.getAddress();
+        model.path =
+            PathHelper.createPath(
+                LOCAL_ISD_AS, model.isdAs, model.nHops, pathId, ip, address.getPort(), expiration);
+        pathsByRaw.put(ByteBuffer.wrap(model.path.getRawPath()), model);
+      }
+      return model.path;
+    }
+  }
+
+  private boolean isExpired(Path path) {
+    return path.getMetadata().getExpiration() * 1000 <= clockMillis.getAsLong();
+  }
+
+  private PathModel getModel(Path path) throws IOException {
+    PathModel model = pathsByRaw.get(ByteBuffer.wrap(path.getRawPath()));
+    if (model == null) {
+      throw new IOException("Unknown path to " + path.getRemoteIsdAs());
+    }
+    return model;
+  }
+
+  private boolean randomPercent(double percent) {
+    return percent > 0 && random.nextDouble() * 100 < percent;
+  }
+
+  private double sampleJitterMs() {
+    return -Math.log(1 - random.nextDouble()) * settings.jitterMs;
+  }
+
+  /**
+   * @return The latency of a request in milliseconds, or a negative value if the request is lost.
+   */
+  private double sampleLatencyMs(PathModel model, Path path) {
+    nSent.inc();
+    if (isExpired(path)) {
+      nExpired.inc();
+      return -1;
+    }
+    if (randomPercent(settings.lossPercent)) {
+      nLost.inc();
+      return -1;
+    }
+    double latencyMs = model.latencyMs + sampleJitterMs();
+    if (randomPercent(settings.reorderPercent)) {
+      nReordered.inc();
+      latencyMs += settings.reorderDelayMs;
+    }
+    return latencyMs;
+  }
+
+  private static long toNanos(double millis) {
+    return (long) (millis * 1_000_000);
+  }
+
+  private Scmp.TimedMessage createResponse(
+      PathModel model, Scmp.TimedMessage request, double latencyMs) {
+    Scmp.TimedMessage response;
+    int seq = request.getSequenceNumber();
+    if (request instanceof Scmp.EchoMessage) {
+      response = Scmp.EchoMessage.create(Scmp.TypeCode.TYPE_129, 0, seq, request.getPath());
+    } else {
+      response =
+          new Scmp.TracerouteMessage(
+              Scmp.TypeCode.TYPE_131, 0, seq, model.isdAs, model.nHops, request.getPath());
+    }
+    response.assignRequest(request, toNanos(latencyMs));
+    nResponses.inc();
+    return response;
+  }
+
+  /** Sender that delivers responses asynchronously. */
+  private class SimulatedAsync implements ScionProvider.Async {
+    private final ScmpSenderAsync.ResponseHandler handler;
+
+    private SimulatedAsync(ScmpSenderAsync.ResponseHandler handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public int sendTracerouteLast(Path path) throws IOException {
+      int seq = sequenceId.getAndIncrement() & 0xFFFF;
+      return send(path, Scmp.TracerouteMessage.createRequest(seq, path));
+    }
+
+    @Override
+    public int sendEcho(Path path, ByteBuffer data) throws IOException {
+      int seq = sequenceId.getAndIncrement() & 0xFFFF;
+      return send(path, Scmp.EchoMessage.createRequest(seq, path, data));
+    }
+
+    private int send(Path path, Scmp.TimedMessage request) throws IOException {
+      PathModel model = getModel(path);
+      double latencyMs = sampleLatencyMs(model, path);
+      if (latencyMs < 0) {
+        schedule(
+            settings.timeoutMs,
+            () -> {
+              request.setTimedOut(toNanos(settings.timeoutMs));
+              handler.onTimeout(request);
+            });
+        return request.getSequenceNumber();
+      }
+      schedule(latencyMs, () -> handler.onResponse(createResponse(model, request, latencyMs)));
+      if (randomPercent(settings.duplicatePercent)) {
+        nDuplicates.inc();
+        double duplicateMs = latencyMs + sampleJitterMs();
+        schedule(
+            duplicateMs, () -> handler.onResponse(createResponse(model, request, duplicateMs)));
+      }
+      return request.getSequenceNumber();
+    }
+
+    private void schedule(double delayMs, Runnable task) {
+      timer.schedule(task, toNanos(delayMs), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() {
+      // Nothing to do, the timer is shared by all senders.
+    }
+  }
+
+  /** Sender that returns responses immediately. */
+  private class SimulatedSync implements ScionProvider.Sync {
+    @Override
+    public Scmp.EchoMessage sendEchoRequest(Path path, ByteBuffer bb) throws IOException {
+      int seq = sequenceId.getAndIncrement() & 0xFFFF;
+      Scmp.EchoMessage request = Scmp.EchoMessage.createRequest(seq, path, bb);
+      PathModel model = getModel(path);
+      double latencyMs = sampleLatencyMs(model, path);
+      if (latencyMs < 0) {
+        request.setTimedOut(toNanos(settings.timeoutMs));
+        return request;
+      }
+      return (Scmp.EchoMessage) createResponse(model, request, latencyMs);
+    }
+
+    @Override
+    public List<Scmp.TracerouteMessage> sendTracerouteRequest(Path path) throws IOException {
+      int seq = sequenceId.getAndIncrement() & 0xFFFF;
+      Scmp.TracerouteMessage request = Scmp.TracerouteMessage.createRequest(seq, path);
+      PathModel model = getModel(path);
+      double latencyMs = sampleLatencyMs(model, path);
+      if (latencyMs < 0) {
+        request.setTimedOut(toNanos(settings.timeoutMs));
+        return Collections.singletonList(request);
+      }
+      // One response per hop, the latency grows with the distance.
+      List<Scmp.TracerouteMessage> responses = new ArrayList<>();
+      for (int hop = 1; hop <= model.nHops; hop++) {
+        double hopMs = latencyMs * hop / model.nHops;
+        responses.add((Scmp.TracerouteMessage) createResponse(model, request, hopMs));
+      }
+      return responses;
+    }
+
+    @Override
+    public void close() {
+      // Nothing to do
+    }
+  }
+
+  public long getSentCount() {
+    return nSent.get();
+  }
+
+  public long getResponseCount() {
+    return nResponses.get();
+  }
+
+  public long getLostCount() {
+    return nLost.get();
+  }
+
+  public long getExpiredCount() {
+    return nExpired.get();
+  }
+
+  public long getReorderedCount() {
+    return nReordered.get();
+  }
+
+  public long getDuplicateCount() {
+    return nDuplicates.get();
+  }
+
+  @Override
+  public void close() {
+    timer.shutdownNow();
+  }
+}
@@ -0,0 +1,207 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.scion.jpan.Path;
+import org.scion.jpan.Scmp;
+import org.scion.jpan.ScmpSenderAsync;
+
+class SimulatedNetworkTest {
+
+  private static final InetSocketAddress ADDRESS =
+      new InetSocketAddress(InetAddress.getLoopbackAddress(), 30041);
+
+  /** Collects all responses and timeouts. */
+  private static class Collector implements ScmpSenderAsync.ResponseHandler {
+    private final List<Integer> responses = new ArrayList<>();
+    private final Set<Integer> timeouts = new HashSet<>();
+    private final CountDownLatch latch;
+
+    private Collector(int expected) {
+      this.latch = new CountDownLatch(expected);
+    }
+
+    @Override
+    public synchronized void onResponse(Scmp.TimedMessage msg) {
+      responses.add(msg.getSequenceNumber());
+      latch.countDown();
+    }
+
+    @Override
+    public synchronized void onTimeout(Scmp.TimedMessage msg) {
+      assertTrue(msg.isTimedOut());
+      timeouts.add(msg.getSequenceNumber());
+      latch.countDown();
+    }
+
+    @Override
+    public void onError(Scmp.ErrorMessage msg) {
+      fail();
+    }
+
+    private void await() throws InterruptedException {
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+  }
+
+  private static SimulatedNetwork.Settings createSettings() {
+    SimulatedNetwork.Settings settings = new SimulatedNetwork.Settings();
+    settings.nAs = 100;
+    settings.minLatencyMs = 1;
+    settings.maxLatencyMs = 5;
+    settings.jitterMs = 0.1;
+    settings.timeoutMs = 50;
+    return settings;
+  }
+
+  @Test
+  void testTopology() {
+    SimulatedNetwork.Settings settings = createSettings();
+    settings.nAs = 2000;
+    try (SimulatedNetwork network = new SimulatedNetwork(settings)) {
+      List<ParseAssignments.HostEntry> entries = network.getIsdAsEntries();
+      assertEquals(2000, entries.size());
+      Set<ByteBuffer> rawPaths = new HashSet<>();
+      for (ParseAssignments.HostEntry e : entries) {
+        assertNotEquals(SimulatedNetwork.LOCAL_ISD_AS, e.getIsdAs());
+        List<Path> paths = network.getPaths(e.getIsdAs(), ADDRESS);
+        assertTrue(
+            paths.size() >= settings.minPathsPerAs && paths.size() <= settings.maxPathsPerAs);
+        for (Path path : paths) {
+          assertEquals(e.getIsdAs(), path.getRemoteIsdAs());
+          int hops = PathInfo.get(path).getHopCount();
+          assertTrue(hops >= settings.minHops && hops <= settings.maxHops, "" + hops);
+          assertTrue(rawPaths.add(ByteBuffer.wrap(path.getRawPath())));
+        }
+        // Paths are stable until they expire
+        assertEquals(paths, network.getPaths(e.getIsdAs(), ADDRESS));
+      }
+      assertTrue(network.getPaths(SimulatedNetwork.LOCAL_ISD_AS, ADDRESS).isEmpty());
+    }
+
+    // The topology only depends on the seed
+    try (SimulatedNetwork n1 = new SimulatedNetwork(settings);
+        SimulatedNetwork n2 = new SimulatedNetwork(settings)) {
+      long isdAs = n1.getIsdAsEntries().get(1234).getIsdAs();
+      List<Path> p1 = n1.getPaths(isdAs, ADDRESS);
+      List<Path> p2 = n2.getPaths(isdAs, ADDRESS);
+      assertEquals(p1.size(), p2.size());
+      for (int i = 0; i < p1.size(); i++) {
+        assertArrayEquals(p1.get(i).getRawPath(), p2.get(i).getRawPath());
+      }
+    }
+  }
+
+  @Test
+  void testAsync() throws Exception {
+    SimulatedNetwork.Settings settings = createSettings();
+    settings.lossPercent = 10;
+    settings.duplicatePercent = 5;
+    settings.reorderPercent = 5;
+    int n = 1000;
+    try (SimulatedNetwork network = new SimulatedNetwork(settings)) {
+      long isdAs = network.getIsdAsEntries().get(0).getIsdAs();
+      Path path = network.getPaths(isdAs, ADDRESS).get(0);
+      ScionProvider provider = network.createProvider();
+      // Wait for all responses, timeouts and duplicates
+      Collector collector = new Collector(n);
+      try (ScionProvider.Async sender = provider.getAsync(collector)) {
+        for (int i = 0; i < n; i++) {
+          assertEquals(i, sender.sendEcho(path, ByteBuffer.allocate(0)));
+        }
+        collector.await();
+        Thread.sleep(2 * settings.timeoutMs);
+      }
+
+      assertEquals(n, network.getSentCount());
+      assertTrue(network.getLostCount() > 0);
+      assertTrue(network.getDuplicateCount() > 0);
+      assertTrue(network.getReorderedCount() > 0);
+      synchronized (collector) {
+        assertEquals(network.getLostCount(), collector.timeouts.size());
+        long expected = n - network.getLostCount() + network.getDuplicateCount();
+        assertEquals(expected, collector.responses.size());
+        assertEquals(expected, network.getResponseCount());
+        // Lost requests are never answered
+        for (int seq : collector.responses) {
+          assertFalse(collector.timeouts.contains(seq));
+        }
+        // Reordered responses arrive after later requests
+        List<Integer> sorted = new ArrayList<>(collector.responses);
+        sorted.sort(null);
+        assertNotEquals(sorted, collector.responses);
+      }
+    }
+  }
+
+  @Test
+  void testSync() throws IOException {
+    try (SimulatedNetwork network = new SimulatedNetwork(createSettings())) {
+      long isdAs = network.getIsdAsEntries().get(0).getIsdAs();
+      Path path = network.getPaths(isdAs, ADDRESS).get(0);
+      try (ScionProvider.Sync sender = network.createProvider().getSync()) {
+        Scmp.EchoMessage echo = sender.sendEchoRequest(path, ByteBuffer.allocate(0));
+        assertFalse(echo.isTimedOut());
+        double ms = echo.getNanoSeconds() / 1_000_000.0;
+        assertTrue(ms >= 1 && ms < 10, "" + ms);
+
+        List<Scmp.TracerouteMessage> tr = sender.sendTracerouteRequest(path);
+        assertEquals(PathInfo.get(path).getHopCount(), tr.size());
+        Scmp.TracerouteMessage last = tr.get(tr.size() - 1);
+        assertEquals(isdAs, last.getIsdAs());
+        assertTrue(tr.get(0).getNanoSeconds() < last.getNanoSeconds());
+      }
+    }
+  }
+
+  @Test
+  void testPathExpiry() throws IOException {
+    SimulatedNetwork.Settings settings = createSettings();
+    settings.pathLifetimeSec = 100;
+    AtomicLong clock = new AtomicLong(1_000_000_000L);
+    try (SimulatedNetwork network = new SimulatedNetwork(settings, clock::get)) {
+      long isdAs = network.getIsdAsEntries().get(0).getIsdAs();
+      Path path = network.getPaths(isdAs, ADDRESS).get(0);
+      assertEquals(clock.get() / 1000 + 100, path.getMetadata().getExpiration());
+      try (ScionProvider.Sync sender = network.createProvider().getSync()) {
+        assertFalse(sender.sendEchoRequest(path, ByteBuffer.allocate(0)).isTimedOut());
+
+        clock.addAndGet(100_000);
+        assertTrue(sender.sendEchoRequest(path, ByteBuffer.allocate(0)).isTimedOut());
+        assertEquals(1, network.getExpiredCount());
+
+        // A new lookup returns a new path
+        Path newPath = network.getPaths(isdAs, ADDRESS).get(0);
+        assertFalse(Arrays.equals(path.getRawPath(), newPath.getRawPath()));
+        assertEquals(PathInfo.get(path).getHopCount(), PathInfo.get(newPath).getHopCount());
+        assertFalse(sender.sendEchoRequest(newPath, ByteBuffer.allocate(0)).isTimedOut());
+      }
+    }
+  }
+}
@@ -0,0 +1,98 @@
+// Copyright 2025 ETH Zurich
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.scion.multiping.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class StreamingStatsTest {
+
+  @Test
+  void testEmpty() {
+    StreamingStats stats = new StreamingStats();
+    assertEquals(0, stats.getCount());
+    assertEquals(-1, stats.getMin());
+    assertEquals(-1, stats.getMax());
+    assertEquals(-1, stats.getMean());
+    assertEquals(0, stats.getVariance());
+    assertEquals(-1, stats.getPercentile(50));
+  }
+
+  @Test
+  void testMeanAndVariance() {
+    StreamingStats stats = new StreamingStats();
+    double[] values = {2, 4, 4, 4, 5, 5, 7, 9};
+    for (double v : values) {
+      stats.add(v);
+    }
+    assertEquals(8, stats.getCount());
+    assertEquals(2, stats.getMin());
+    assertEquals(9, stats.getMax());
+    assertEquals(5, stats.getMean(), 1e-9);
+    assertEquals(32 / 7.0, stats.getVariance(), 1e-9);
+  }
+
+  @Test
+  void testPercentiles() {
+    StreamingStats stats = new StreamingStats();
+    Random rnd = new Random(42);
+    double[] values = new double[100_000];
+    for (int i = 0; i < values.length; i++) {
+      // Exponentially distributed latencies, mean 50ms
+      values[i] = -50 * Math.log(1 - rnd.nextDouble());
+      stats.add(values[i]);
+    }
+    Arrays.sort(values);
+    for (double p : new double[] {0, 50, 90, 99, 99.9, 100}) {
+      int rank = Math.max(1, (int) Math.ceil(p / 100 * values.length));
+      double expected = values[rank - 1];
+      assertEquals(
+          expected, stats.getPercentile(p), expected * LatencyHistogram.PRECISION, "p" + p);
+    }
+    assertEquals(values[0], stats.getPercentile(0));
+    assertEquals(values[values.length - 1], stats.getPercentile(100));
+  }
+
+  @Test
+  void testIntegerPercentiles() {
+    StreamingStats stats = new StreamingStats();
+    for (int i = 1; i <= 99; i++) {
+      stats.add(i);
+    }
+    assertEquals(50, Math.round(stats.getPercentile(50)));
+    assertEquals(90, Math.round(stats.getPercentile(90)));
+    assertEquals(99, Math.round(stats.getPercentile(99)));
+  }
+
+  @Test
+  void testHistogramGrowth() {
+    LatencyHistogram h = new LatencyHistogram();
+    // Grow in both directions, including values outside of the supported range
+    double[] values = {1000, 1001, 10, 1e-5, 5e7, 999, 1000};
+    for (double v : values) {
+      h.add(v);
+    }
+    assertEquals(values.length, h.getCount());
+    assertEquals(1e-5, h.getMin());
+    assertEquals(5e7, h.getMax());
+    assertEquals(1e-5, h.getPercentile(0));
+    assertEquals(1000, h.getPercentile(50), 1000 * LatencyHistogram.PRECISION);
+    assertEquals(5e7, h.getPercentile(100));
+    h.clear();
+    assertEquals(-1, h.getPercentile(50));
+  }
+}